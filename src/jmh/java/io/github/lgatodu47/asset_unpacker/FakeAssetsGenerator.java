@@ -0,0 +1,173 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates fake {@code .minecraft/assets} trees so the benchmarks can be reproduced offline without a Minecraft installation.<br>
+ * The generated assets mimic the real ones: mostly small textures, a fair amount of short sounds and language files,
+ * a few multi-megabyte music tracks and a small share of assets with the same content. The same seed always
+ * generates the same tree.<br>
+ * It can also be run on its own: {@code FakeAssetsGenerator <mcDir> <entries> [version] [seed]}.
+ */
+public final class FakeAssetsGenerator {
+    /**
+     * The kinds of assets that are generated, with their share of the index and their size range.
+     */
+    private enum Kind {
+        TEXTURE("minecraft/textures/block/", ".png", 70, 200, 8 * 1024),
+        SOUND("minecraft/sounds/mob/", ".ogg", 20, 5 * 1024, 60 * 1024),
+        LANG("minecraft/lang/", ".json", 8, 1024, 50 * 1024),
+        META("minecraft/textures/entity/", ".png.mcmeta", 1, 20, 200),
+        MUSIC("minecraft/sounds/music/game/", ".ogg", 1, 1024 * 1024, 4 * 1024 * 1024);
+
+        private final String directory;
+        private final String extension;
+        private final int weight;
+        private final int minSize;
+        private final int maxSize;
+
+        Kind(String directory, String extension, int weight, int minSize, int maxSize) {
+            this.directory = directory;
+            this.extension = extension;
+            this.weight = weight;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * The share of assets reusing the content of a previous asset, in percents.
+     */
+    private static final int DUPLICATE_PERCENT = 3;
+    private static final int TOTAL_WEIGHT = 100;
+
+    private FakeAssetsGenerator() {
+    }
+
+    /**
+     * Generates an asset index and the matching object files.
+     *
+     * @param mcDir The fake Minecraft directory, the 'assets' directory is created inside it.
+     * @param version The version of the generated asset index.
+     * @param entries The amount of assets in the index.
+     * @param seed The seed of the generator.
+     * @return The generated assets.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static List<Asset> generate(Path mcDir, String version, int entries, long seed) throws IOException {
+        List<Asset> assets = generateAssets(entries, seed, mcDir.resolve("assets/objects"));
+        writeIndex(mcDir.resolve("assets/indexes/" + version + ".json"), assets);
+        return assets;
+    }
+
+    /**
+     * Only generates an asset index, with hashes that don't match any object file. It is enough for parsing benchmarks.
+     *
+     * @param indexFile The path of the generated index file.
+     * @param entries The amount of assets in the index.
+     * @param seed The seed of the generator.
+     * @return The generated assets.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static List<Asset> generateIndex(Path indexFile, int entries, long seed) throws IOException {
+        List<Asset> assets = generateAssets(entries, seed, null);
+        writeIndex(indexFile, assets);
+        return assets;
+    }
+
+    private static List<Asset> generateAssets(int entries, long seed, Path objectsDir) throws IOException {
+        Random random = new Random(seed);
+        List<Asset> assets = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            Kind kind = pickKind(random);
+            String path = kind.directory + "asset_" + i + kind.extension;
+            if (i > 0 && random.nextInt(100) < DUPLICATE_PERCENT) {
+                Asset original = assets.get(random.nextInt(assets.size()));
+                assets.add(new Asset(path, original.hash(), original.size()));
+                continue;
+            }
+            int size = kind.minSize + random.nextInt(kind.maxSize - kind.minSize + 1);
+            if (objectsDir == null) {
+                // No need to generate the content, a random hash is just as good
+                byte[] hash = new byte[AssetIndex.HASH_LENGTH];
+                random.nextBytes(hash);
+                assets.add(new Asset(path, HashUtils.toHex(hash), size));
+                continue;
+            }
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            String hash = HashUtils.toHex(HashUtils.newSha1().digest(content));
+            Path objectPath = objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+            Files.createDirectories(objectPath.getParent());
+            Files.write(objectPath, content);
+            assets.add(new Asset(path, hash, size));
+        }
+        return assets;
+    }
+
+    private static Kind pickKind(Random random) {
+        int roll = random.nextInt(TOTAL_WEIGHT);
+        for (Kind kind : Kind.values()) {
+            roll -= kind.weight;
+            if (roll < 0) {
+                return kind;
+            }
+        }
+        return Kind.TEXTURE;
+    }
+
+    /**
+     * Writes the index the same way Minecraft does: on a single line.
+     */
+    private static void writeIndex(Path indexFile, List<Asset> assets) throws IOException {
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            writer.write("{\"objects\": {");
+            for (int i = 0; i < assets.size(); i++) {
+                Asset asset = assets.get(i);
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                writer.write("\"" + asset.path() + "\": {\"hash\": \"" + asset.hash() + "\", \"size\": " + asset.size() + "}");
+            }
+            writer.write("}}");
+        }
+    }
+
+    /**
+     * Deletes a directory generated for a benchmark.
+     *
+     * @param dir The directory to delete.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void delete(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> stream = Files.walk(dir)) {
+                for (Path path : stream.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: FakeAssetsGenerator <mcDir> <entries> [version] [seed]");
+            return;
+        }
+        Path mcDir = Path.of(args[0]);
+        int entries = Integer.parseInt(args[1]);
+        String version = args.length > 2 ? args[2] : "1.19";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        List<Asset> assets = generate(mcDir, version, entries, seed);
+        System.out.println("Generated " + assets.size() + " assets (" + assets.stream().mapToLong(Asset::size).sum() / 1024 + " KiB) in '" + mcDir.toAbsolutePath() + "'.");
+    }
+}
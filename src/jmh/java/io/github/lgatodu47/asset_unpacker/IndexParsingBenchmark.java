@@ -0,0 +1,55 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link AssetIndexReader} to the legacy {@link JsonUtils#readIndexesJson} parser, and measures
+ * the cost of building an {@link AssetIndex} on top of the streaming reader.
+ * All of them are given the path of an index file, so the cost of reading the file is included.<br>
+ * Run with {@code -prof gc} to also compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexParsingBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    private Path indexFile;
+
+    @Setup
+    public void setup() throws IOException {
+        indexFile = Files.createTempFile("index", ".json");
+        FakeAssetsGenerator.generateIndex(indexFile, entries, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public void legacyParser(Blackhole blackhole) throws IOException {
+        JsonUtils.readIndexesJson(Files.readString(indexFile), blackhole::consume);
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) throws IOException {
+        AssetIndexReader.read(indexFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public AssetIndex assetIndex() throws IOException {
+        return AssetIndex.read(indexFile);
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast assets are looked up and how fast the paths of their object files are built.
+ * Each invocation goes through all the assets of the index, the scores are given per asset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(ObjectLookupBenchmark.ENTRIES)
+public class ObjectLookupBenchmark {
+    static final int ENTRIES = 10000;
+
+    private final Path objectsDir = Path.of("assets", "objects").toAbsolutePath();
+    private final Path[] shards = new Path[256];
+    private String[] paths;
+    private String[] hashes;
+    private Map<String, String> pathToHash;
+    private AssetIndex index;
+
+    @Setup
+    public void setup() throws IOException {
+        Path indexFile = Files.createTempFile("index", ".json");
+        try {
+            List<Asset> assets = FakeAssetsGenerator.generateIndex(indexFile, ENTRIES, 0);
+            paths = assets.stream().map(Asset::path).toArray(String[]::new);
+            hashes = assets.stream().map(Asset::hash).toArray(String[]::new);
+            pathToHash = new HashMap<>();
+            assets.forEach(asset -> pathToHash.put(asset.path(), asset.hash()));
+            index = AssetIndex.read(indexFile);
+        } finally {
+            Files.delete(indexFile);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = objectsDir.resolve(String.format("%02x", i));
+        }
+    }
+
+    /**
+     * What {@link MinecraftAssetUnpacker} does, through {@link Asset#objectName()}.
+     */
+    @Benchmark
+    public void concatObjectPath(Blackhole blackhole) {
+        for (String hash : hashes) {
+            blackhole.consume(objectsDir.resolve(hash.substring(0, 2).concat("/").concat(hash)));
+        }
+    }
+
+    @Benchmark
+    public void resolveTwice(Blackhole blackhole) {
+        for (String hash : hashes) {
+            blackhole.consume(objectsDir.resolve(hash.substring(0, 2)).resolve(hash));
+        }
+    }
+
+    @Benchmark
+    public void cachedShardDirectories(Blackhole blackhole) {
+        for (String hash : hashes) {
+            int shard = Character.digit(hash.charAt(0), 16) << 4 | Character.digit(hash.charAt(1), 16);
+            blackhole.consume(shards[shard].resolve(hash));
+        }
+    }
+
+    @Benchmark
+    public void hashMapByPath(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(pathToHash.get(path));
+        }
+    }
+
+    @Benchmark
+    public void assetIndexByPath(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(index.findByPath(path));
+        }
+    }
+
+    @Benchmark
+    public void assetIndexByHash(Blackhole blackhole) {
+        for (String hash : hashes) {
+            blackhole.consume(index.findByHash(hash));
+        }
+    }
+}
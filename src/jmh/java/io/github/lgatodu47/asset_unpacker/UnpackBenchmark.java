@@ -0,0 +1,67 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole unpack of a generated assets tree into a temporary directory, with different engines and output
+ * strategies. Each measurement is a single unpack into an empty output directory.<br>
+ * The engine is either a thread count, or 'virtual' for the virtual-thread engine, whose amount of copies at once is
+ * capped by the default {@link AssetUnpackerConfig#DEFAULT_MAX_IN_FLIGHT}. On Java 17, the virtual engine falls back
+ * to the pooled one, so run the benchmark on Java 21 or above to compare them, e.g. with
+ * {@code -p entries=50000 -p strategy=COPY} for a tree the size of a recent index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UnpackBenchmark {
+    private static final String VERSION = "1.19";
+
+    @Param({"4000"})
+    public int entries;
+    @Param({"1", "4", "16", "virtual"})
+    public String engine;
+    @Param({"COPY", "HARDLINK", "SYMLINK"})
+    public OutputStrategy strategy;
+
+    private Path mcDir;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        mcDir = Files.createTempDirectory("mc");
+        outputDir = Files.createTempDirectory("unpacked");
+        FakeAssetsGenerator.generate(mcDir, VERSION, entries, 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyOutput() throws IOException {
+        FakeAssetsGenerator.delete(outputDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        FakeAssetsGenerator.delete(outputDir);
+        FakeAssetsGenerator.delete(mcDir);
+    }
+
+    @Benchmark
+    public void unpack() {
+        AssetUnpackerConfig.Builder config = AssetUnpackerConfig.builder(mcDir, List.of(VERSION), outputDir).outputStrategy(strategy);
+        if (engine.equals("virtual")) {
+            config.virtualThreads(true);
+        } else {
+            config.threads(Integer.parseInt(engine));
+        }
+        // No console output, it would be measured as well
+        new MinecraftAssetUnpacker().start(config.build(), new UnpackListener() {});
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * An entry of an asset index file.
+ *
+ * @param path The path of the asset once unpacked, relative to the output directory.
+ * @param hash The SHA-1 hash of the asset, which is also the name of its object file.
+ * @param size The size of the asset in bytes.
+ */
+public record Asset(String path, String hash, long size) {
+    /**
+     * @return The path of the object file of this asset, relative to the 'objects' directory.
+     */
+    public String objectName() {
+        // Assets are stored in a folder named by the two-first letters of the hash
+        return hash.substring(0, 2).concat("/").concat(hash);
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The attributes of a file or directory of an {@link AssetFileSystem}, which all come from the asset index.
+ *
+ * @param directory If this is a directory.
+ * @param size The size of the asset, or 0 for a directory.
+ * @param hash The hash of the asset, or {@code null} for a directory. Two files with the same hash have the same content.
+ * @param time The time of the file, which is the last modification time of the index file.
+ */
+record AssetFileAttributes(boolean directory, long size, String hash, FileTime time) implements BasicFileAttributes {
+    /**
+     * @param attributes The attributes to get, in the format of {@link java.nio.file.Files#readAttributes(java.nio.file.Path, String, java.nio.file.LinkOption...)}.
+     * @return The values of the attributes by name.
+     * @throws UnsupportedOperationException If the attributes aren't basic attributes.
+     * @throws IllegalArgumentException If an attribute doesn't exist.
+     */
+    Map<String, Object> toMap(String attributes) {
+        int colon = attributes.indexOf(':');
+        if (colon != -1) {
+            String view = attributes.substring(0, colon);
+            if (!view.equals("basic")) {
+                throw new UnsupportedOperationException("Unsupported attribute view '" + view + "'.");
+            }
+            attributes = attributes.substring(colon + 1);
+        }
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("lastModifiedTime", time);
+        all.put("lastAccessTime", time);
+        all.put("creationTime", time);
+        all.put("size", size);
+        all.put("isRegularFile", !directory);
+        all.put("isDirectory", directory);
+        all.put("isSymbolicLink", false);
+        all.put("isOther", false);
+        all.put("fileKey", hash);
+        if (attributes.equals("*")) {
+            return all;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : attributes.split(",")) {
+            if (name.equals("*")) {
+                result.putAll(all);
+            } else if (all.containsKey(name)) {
+                result.put(name, all.get(name));
+            } else {
+                throw new IllegalArgumentException("Unknown attribute '" + name + "'.");
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return time;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return time;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return time;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    @Override
+    public Object fileKey() {
+        return hash;
+    }
+}
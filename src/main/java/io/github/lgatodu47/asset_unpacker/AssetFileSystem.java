@@ -0,0 +1,338 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A read-only file system presenting the assets of an asset index with the layout of an unpacked output directory,
+ * without unpacking anything.<br>
+ * The index is read once and its paths are turned into an {@link AssetTree}, from which the directories are listed.
+ * A file of the file system is its object file in the 'objects' directory: opening it opens the object file directly,
+ * and its attributes come from the index.
+ */
+final class AssetFileSystem extends FileSystem {
+    private final AssetFileSystemProvider provider;
+    private final Path indexFile;
+    private final Path objectsDir;
+    private final AssetIndex index;
+    private final AssetTree tree;
+    /**
+     * The time of all the files and directories, which is the last modification time of the index file.
+     */
+    private final FileTime time;
+    private final AssetPath root = new AssetPath(this, "/");
+    private final FileStore store = new AssetFileStore();
+    private volatile boolean open = true;
+
+    /**
+     * @param provider The provider creating this file system.
+     * @param indexFile The asset index file, in the 'assets/indexes' directory.
+     * @throws IOException If the index file can't be read.
+     */
+    AssetFileSystem(AssetFileSystemProvider provider, Path indexFile) throws IOException {
+        this.provider = provider;
+        this.indexFile = indexFile;
+        this.objectsDir = indexFile.getParent().resolveSibling("objects");
+        this.index = AssetIndex.read(indexFile);
+        this.tree = new AssetTree(index);
+        this.time = Files.getLastModifiedTime(indexFile);
+    }
+
+    /**
+     * @return The asset index file presented by this file system.
+     */
+    Path indexFile() {
+        return indexFile;
+    }
+
+    /**
+     * @return The root directory.
+     */
+    AssetPath root() {
+        return root;
+    }
+
+    /**
+     * @return The time of all the files and directories.
+     */
+    FileTime time() {
+        return time;
+    }
+
+    /**
+     * @param path An absolute and normalized path of this file system.
+     * @return The URI of the path.
+     */
+    URI toUri(String path) {
+        try {
+            String encodedPath = new URI(null, null, path, null).getRawPath();
+            return new URI(AssetFileSystemProvider.SCHEME + ":" + indexFile.toUri() + "!" + encodedPath);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid path '" + path + "'.", e);
+        }
+    }
+
+    /**
+     * Looks a path up in the tree.
+     *
+     * @param path A path of this file system.
+     * @return The file or directory at this path.
+     * @throws NoSuchFileException If there is nothing at this path.
+     */
+    AssetTree.Node lookup(AssetPath path) throws NoSuchFileException {
+        ensureOpen();
+        AssetPath absolute = path.toAbsolutePath().normalize();
+        AssetTree.Node node = tree.root();
+        for (int i = 0; i < absolute.getNameCount() && node != null; i++) {
+            node = node.child(absolute.getName(i).toString());
+        }
+        if (node == null) {
+            throw new NoSuchFileException(path.toString());
+        }
+        return node;
+    }
+
+    /**
+     * @param node A file of the tree.
+     * @return The asset of the file.
+     */
+    Asset asset(AssetTree.Node node) {
+        return index.get(node.asset());
+    }
+
+    /**
+     * @param node A file of the tree.
+     * @return The object file of the file.
+     */
+    Path objectFile(AssetTree.Node node) {
+        return objectsDir.resolve(asset(node).objectName());
+    }
+
+    void ensureOpen() {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+    }
+
+    @Override
+    public AssetFileSystemProvider provider() {
+        return provider;
+    }
+
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            provider.closed(this);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String getSeparator() {
+        return "/";
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return List.of(root);
+    }
+
+    /**
+     * @return The single store of this file system.
+     */
+    FileStore store() {
+        return store;
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return List.of(store);
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return Set.of("basic");
+    }
+
+    @Override
+    public AssetPath getPath(String first, String... more) {
+        if (more.length == 0) {
+            return new AssetPath(this, first);
+        }
+        StringBuilder path = new StringBuilder(first);
+        for (String name : more) {
+            if (!name.isEmpty()) {
+                if (!path.isEmpty()) {
+                    path.append('/');
+                }
+                path.append(name);
+            }
+        }
+        return new AssetPath(this, path.toString());
+    }
+
+    @Override
+    public PathMatcher getPathMatcher(String syntaxAndPattern) {
+        int colon = syntaxAndPattern.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected 'syntax:pattern' but got '" + syntaxAndPattern + "'.");
+        }
+        String syntax = syntaxAndPattern.substring(0, colon);
+        String pattern = syntaxAndPattern.substring(colon + 1);
+        Pattern regex;
+        if (syntax.equalsIgnoreCase("glob")) {
+            regex = Pattern.compile(globToRegex(pattern));
+        } else if (syntax.equalsIgnoreCase("regex")) {
+            regex = Pattern.compile(pattern);
+        } else {
+            throw new UnsupportedOperationException("Unsupported path matcher syntax '" + syntax + "'.");
+        }
+        return path -> regex.matcher(path.toString()).matches();
+    }
+
+    /**
+     * Converts a glob pattern to a regular expression, following the rules of {@link FileSystem#getPathMatcher(String)}.
+     */
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder("^");
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '{' -> {
+                    if (inGroup) {
+                        throw new PatternSyntaxException("Nested groups aren't supported", glob, i);
+                    }
+                    regex.append("(?:");
+                    inGroup = true;
+                }
+                case '}' -> {
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                }
+                case ',' -> regex.append(inGroup ? "|" : ",");
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 2);
+                    if (end == -1) {
+                        throw new PatternSyntaxException("Missing ']'", glob, i);
+                    }
+                    String chars = glob.substring(i + 1, end);
+                    regex.append('[').append(chars.startsWith("!") ? "^" + chars.substring(1) : chars).append("&&[^/]]");
+                    i = end;
+                }
+                case '\\' -> {
+                    if (++i == glob.length()) {
+                        throw new PatternSyntaxException("No character to escape", glob, i - 1);
+                    }
+                    regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+                }
+                default -> regex.append(Character.isLetterOrDigit(c) || c == '/' ? String.valueOf(c) : Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (inGroup) {
+            throw new PatternSyntaxException("Missing '}'", glob, glob.length() - 1);
+        }
+        return regex.append('$').toString();
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        throw new UnsupportedOperationException("The asset file system has no users.");
+    }
+
+    @Override
+    public WatchService newWatchService() {
+        throw new UnsupportedOperationException("The asset file system can't be watched.");
+    }
+
+    @Override
+    public String toString() {
+        return indexFile.toString();
+    }
+
+    /**
+     * The single store of the file system. It reports the space of the store of the 'objects' directory, where the
+     * content of the files actually is.
+     */
+    private final class AssetFileStore extends FileStore {
+        @Override
+        public String name() {
+            return indexFile.getFileName().toString();
+        }
+
+        @Override
+        public String type() {
+            return AssetFileSystemProvider.SCHEME;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public long getTotalSpace() throws IOException {
+            return Files.getFileStore(objectsDir).getTotalSpace();
+        }
+
+        @Override
+        public long getUsableSpace() {
+            return 0;
+        }
+
+        @Override
+        public long getUnallocatedSpace() {
+            return 0;
+        }
+
+        @Override
+        public boolean supportsFileAttributeView(Class<? extends FileAttributeView> type) {
+            return type == BasicFileAttributeView.class;
+        }
+
+        @Override
+        public boolean supportsFileAttributeView(String name) {
+            return name.equals("basic");
+        }
+
+        @Override
+        public <V extends FileStoreAttributeView> V getFileStoreAttributeView(Class<V> type) {
+            return null;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) {
+            throw new UnsupportedOperationException("Unsupported file store attribute '" + attribute + "'.");
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.*;
+
+/**
+ * Provides read-only file systems presenting the assets of an asset index with the same layout as an unpacked output
+ * directory, without unpacking anything: reading a file reads its object file directly.<br>
+ * A file system is created from an asset index file, either with {@link FileSystems#newFileSystem(Path)} or with a URI
+ * of the form {@code mcassets:file:///path/to/.minecraft/assets/indexes/1.19.json}. The URI of a path appends it after
+ * a '!', such as {@code mcassets:file:///path/to/.minecraft/assets/indexes/1.19.json!/minecraft/lang/fr_fr.json}.
+ * <pre>{@code
+ * try (FileSystem assets = FileSystems.newFileSystem(Path.of(".minecraft/assets/indexes/1.19.json"))) {
+ *     try (Stream<Path> files = Files.walk(assets.getPath("/minecraft/sounds"))) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ */
+public final class AssetFileSystemProvider extends FileSystemProvider {
+    /**
+     * The scheme of the URIs of the asset file systems.
+     */
+    public static final String SCHEME = "mcassets";
+
+    /**
+     * The open file systems, by absolute path of their index file.
+     */
+    private final Map<Path, AssetFileSystem> fileSystems = new HashMap<>();
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+        Path indexFile = indexFileOf(uri);
+        synchronized (fileSystems) {
+            if (fileSystems.containsKey(indexFile)) {
+                throw new FileSystemAlreadyExistsException(uri.toString());
+            }
+            AssetFileSystem fileSystem = new AssetFileSystem(this, indexFile);
+            fileSystems.put(indexFile, fileSystem);
+            return fileSystem;
+        }
+    }
+
+    /**
+     * Creates a file system from an asset index file. Unlike the file systems created from a URI, this one can't be
+     * found with {@link #getFileSystem(URI)}, so several of them may be open for the same index file.
+     *
+     * @throws UnsupportedOperationException If the file isn't an asset index file, from an 'indexes' directory.
+     */
+    @Override
+    public FileSystem newFileSystem(Path path, Map<String, ?> env) throws IOException {
+        Path indexFile = path.toAbsolutePath().normalize();
+        Path parent = indexFile.getParent();
+        if (!indexFile.toString().endsWith(".json") || parent == null || parent.getFileName() == null || !parent.getFileName().toString().equals("indexes")) {
+            throw new UnsupportedOperationException("'" + path + "' isn't an asset index file.");
+        }
+        return new AssetFileSystem(this, indexFile);
+    }
+
+    @Override
+    public FileSystem getFileSystem(URI uri) {
+        Path indexFile = indexFileOf(uri);
+        synchronized (fileSystems) {
+            AssetFileSystem fileSystem = fileSystems.get(indexFile);
+            if (fileSystem == null) {
+                throw new FileSystemNotFoundException(uri.toString());
+            }
+            return fileSystem;
+        }
+    }
+
+    @Override
+    public Path getPath(URI uri) {
+        String spec = uri.getRawSchemeSpecificPart();
+        int separator = spec.indexOf("!/");
+        if (separator == -1) {
+            throw new IllegalArgumentException("The URI '" + uri + "' has no path.");
+        }
+        return getFileSystem(uri).getPath(URI.create(spec.substring(separator + 1)).getPath());
+    }
+
+    /**
+     * Called when a file system is closed.
+     */
+    void closed(AssetFileSystem fileSystem) {
+        synchronized (fileSystems) {
+            fileSystems.remove(fileSystem.indexFile(), fileSystem);
+        }
+    }
+
+    private static Path indexFileOf(URI uri) {
+        if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("The URI scheme must be '" + SCHEME + "'.");
+        }
+        String spec = uri.getRawSchemeSpecificPart();
+        int separator = spec.indexOf("!/");
+        return Path.of(URI.create(separator == -1 ? spec : spec.substring(0, separator))).toAbsolutePath().normalize();
+    }
+
+    private static AssetPath toAssetPath(Path path) {
+        Objects.requireNonNull(path, "path");
+        if (!(path instanceof AssetPath assetPath)) {
+            throw new ProviderMismatchException();
+        }
+        return assetPath;
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        return newFileChannel(path, options, attrs);
+    }
+
+    /**
+     * Opens the object file of a file, so the channel reads the object file directly, and supports
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} and memory mapping.
+     */
+    @Override
+    public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        for (OpenOption option : options) {
+            if (option != StandardOpenOption.READ && option != LinkOption.NOFOLLOW_LINKS) {
+                throw new ReadOnlyFileSystemException();
+            }
+        }
+        AssetPath assetPath = toAssetPath(path);
+        AssetTree.Node node = assetPath.getFileSystem().lookup(assetPath);
+        if (node.isDirectory()) {
+            throw new FileSystemException(path.toString(), null, "Is a directory");
+        }
+        return FileChannel.open(assetPath.getFileSystem().objectFile(node), StandardOpenOption.READ);
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        AssetPath assetDir = toAssetPath(dir);
+        AssetTree.Node node = assetDir.getFileSystem().lookup(assetDir);
+        if (!node.isDirectory()) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        // The children are already in memory, so they are listed right away
+        List<Path> entries = new ArrayList<>(node.children().length);
+        for (AssetTree.Node child : node.children()) {
+            Path entry = assetDir.resolve(child.name());
+            if (filter.accept(entry)) {
+                entries.add(entry);
+            }
+        }
+        return new DirectoryStream<>() {
+            private boolean iterated;
+
+            @Override
+            public Iterator<Path> iterator() {
+                if (iterated) {
+                    throw new IllegalStateException("The directory stream was already iterated.");
+                }
+                iterated = true;
+                return entries.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public void createDirectory(Path dir, FileAttribute<?>... attrs) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void delete(Path path) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path path2) throws IOException {
+        if (path.equals(path2)) {
+            return true;
+        }
+        if (!(path2 instanceof AssetPath) || path.getFileSystem() != path2.getFileSystem()) {
+            return false;
+        }
+        return toAssetPath(path).toRealPath().equals(toAssetPath(path2).toRealPath());
+    }
+
+    @Override
+    public boolean isHidden(Path path) {
+        return false;
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) throws IOException {
+        AssetPath assetPath = toAssetPath(path);
+        assetPath.getFileSystem().lookup(assetPath);
+        return assetPath.getFileSystem().store();
+    }
+
+    @Override
+    public void checkAccess(Path path, AccessMode... modes) throws IOException {
+        AssetPath assetPath = toAssetPath(path);
+        assetPath.getFileSystem().lookup(assetPath);
+        for (AccessMode mode : modes) {
+            if (mode != AccessMode.READ) {
+                throw new AccessDeniedException(path.toString());
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        if (type != BasicFileAttributeView.class) {
+            return null;
+        }
+        AssetPath assetPath = toAssetPath(path);
+        return (V) new BasicFileAttributeView() {
+            @Override
+            public String name() {
+                return "basic";
+            }
+
+            @Override
+            public BasicFileAttributes readAttributes() throws IOException {
+                return attributesOf(assetPath);
+            }
+
+            @Override
+            public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+                throw new ReadOnlyFileSystemException();
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+        if (type != BasicFileAttributes.class && type != AssetFileAttributes.class) {
+            throw new UnsupportedOperationException("Unsupported attributes " + type.getName() + ".");
+        }
+        return (A) attributesOf(toAssetPath(path));
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+        return attributesOf(toAssetPath(path)).toMap(attributes);
+    }
+
+    /**
+     * Reads the attributes of a file or directory from the index, the object file isn't accessed.
+     */
+    private static AssetFileAttributes attributesOf(AssetPath path) throws IOException {
+        AssetFileSystem fileSystem = path.getFileSystem();
+        AssetTree.Node node = fileSystem.lookup(path);
+        if (node.isDirectory()) {
+            return new AssetFileAttributes(true, 0, null, fileSystem.time());
+        }
+        Asset asset = fileSystem.asset(node);
+        return new AssetFileAttributes(false, asset.size(), asset.hash(), fileSystem.time());
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+}
@@ -0,0 +1,300 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A compact, immutable, in-memory representation of an asset index.<br>
+ * Instead of a {@link String} per hash and a map entry per asset, the hashes are packed as 20-byte values in a single
+ * array and the sizes are stored in a {@code long[]}. Paths are sorted, which allows looking an asset up by its path
+ * with a binary search and iterating the assets in path order. A second array orders the assets by hash, which is the
+ * order of the object files in the 'objects' directory and allows looking assets up by their hash.<br>
+ * The {@link Asset} instances are created on the fly when the index is queried.
+ */
+public final class AssetIndex implements Iterable<Asset> {
+    /**
+     * The length in bytes of a SHA-1 hash.
+     */
+    static final int HASH_LENGTH = 20;
+
+    private final String[] paths;
+    private final byte[] hashes;
+    private final long[] sizes;
+    /**
+     * The indices of the assets sorted by hash.
+     */
+    private final int[] byHash;
+
+    private AssetIndex(String[] paths, byte[] hashes, long[] sizes) {
+        this.paths = paths;
+        this.hashes = hashes;
+        this.sizes = sizes;
+        this.byHash = sortIndices(paths.length, this::compareHashes);
+    }
+
+    /**
+     * Reads an asset index file.
+     *
+     * @param file The asset index file.
+     * @return The asset index described by the file.
+     * @throws IOException If an I/O error occurs or if the file is not a valid asset index.
+     */
+    public static AssetIndex read(Path file) throws IOException {
+        Builder builder = new Builder();
+        builder.read(file);
+        return builder.build();
+    }
+
+    /**
+     * @return The amount of assets in this index.
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @param i The index of the asset, in path order.
+     * @return The asset at the given index.
+     */
+    public Asset get(int i) {
+        return new Asset(paths[i], HashUtils.toHex(hashes, i * HASH_LENGTH, HASH_LENGTH), sizes[i]);
+    }
+
+    /**
+     * Cheaper than {@code get(i).path()} as it doesn't convert the hash of the asset.
+     *
+     * @param i The index of the asset, in path order.
+     * @return The path of the asset at the given index.
+     */
+    public String path(int i) {
+        return paths[i];
+    }
+
+    /**
+     * Compares the content of two assets without creating them.
+     *
+     * @param i The index of an asset of this index, in path order.
+     * @param other Another index.
+     * @param j The index of an asset of the other index, in path order.
+     * @return If both assets have the same hash and size.
+     */
+    boolean sameContent(int i, AssetIndex other, int j) {
+        return sizes[i] == other.sizes[j]
+                && Arrays.equals(hashes, i * HASH_LENGTH, (i + 1) * HASH_LENGTH, other.hashes, j * HASH_LENGTH, (j + 1) * HASH_LENGTH);
+    }
+
+    /**
+     * @param path The path of the asset.
+     * @return The asset with the given path, or {@code null} if there is none.
+     */
+    public Asset findByPath(String path) {
+        int i = Arrays.binarySearch(paths, path);
+        return i < 0 ? null : get(i);
+    }
+
+    /**
+     * Several assets can have the same content, and thus the same hash.
+     *
+     * @param hash The hash of the assets.
+     * @return The assets with the given hash, in path order.
+     */
+    public List<Asset> findByHash(String hash) {
+        byte[] key = new byte[HASH_LENGTH];
+        if (!HashUtils.fromHex(hash, key, 0)) {
+            return List.of();
+        }
+        // Find the first asset with a hash greater or equal to the key
+        int low = 0;
+        int high = byHash.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareHash(byHash[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Asset> result = new ArrayList<>(1);
+        for (int i = low; i < byHash.length && compareHash(byHash[i], key) == 0; i++) {
+            result.add(get(byHash[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return An iterator over the assets in path order, which groups the assets of a same output directory together.
+     */
+    @Override
+    public Iterator<Asset> iterator() {
+        return new IndexIterator(null);
+    }
+
+    /**
+     * @return The assets in hash order, which is the order of their object files in the 'objects' directory.
+     */
+    public Iterable<Asset> inObjectOrder() {
+        return () -> new IndexIterator(byHash);
+    }
+
+    private int compareHashes(int a, int b) {
+        return Arrays.compareUnsigned(hashes, a * HASH_LENGTH, (a + 1) * HASH_LENGTH, hashes, b * HASH_LENGTH, (b + 1) * HASH_LENGTH);
+    }
+
+    private int compareHash(int a, byte[] key) {
+        return Arrays.compareUnsigned(hashes, a * HASH_LENGTH, (a + 1) * HASH_LENGTH, key, 0, HASH_LENGTH);
+    }
+
+    /**
+     * Stable merge sort of the indices {@code [0, n)}, which avoids boxing them to sort them with a comparator.
+     *
+     * @param n The amount of indices.
+     * @param comparator Compares two indices.
+     * @return The sorted indices.
+     */
+    private static int[] sortIndices(int n, IndexComparator comparator) {
+        int[] indices = new int[n];
+        Arrays.setAll(indices, i -> i);
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n - width; low += width * 2) {
+                int mid = low + width;
+                int high = Math.min(low + width * 2, n);
+                int i = low, j = mid, k = low;
+                while (i < mid && j < high) {
+                    buffer[k++] = comparator.compare(indices[i], indices[j]) <= 0 ? indices[i++] : indices[j++];
+                }
+                System.arraycopy(indices, i, buffer, k, mid - i);
+                k += mid - i;
+                System.arraycopy(indices, j, buffer, k, high - j);
+                System.arraycopy(buffer, low, indices, low, high - low);
+            }
+        }
+        return indices;
+    }
+
+    @FunctionalInterface
+    private interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    private final class IndexIterator implements Iterator<Asset> {
+        private final int[] order;
+        private int next;
+
+        private IndexIterator(int[] order) {
+            this.order = order;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < paths.length;
+        }
+
+        @Override
+        public Asset next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = next++;
+            return get(order == null ? i : order[i]);
+        }
+    }
+
+    /**
+     * Collects assets into an {@link AssetIndex}. It can be passed directly to {@link AssetIndexReader}.
+     */
+    public static final class Builder implements Consumer<Asset> {
+        private String[] paths = new String[1024];
+        private byte[] hashes = new byte[1024 * HASH_LENGTH];
+        private long[] sizes = new long[1024];
+        private int count;
+
+        /**
+         * Adds an asset to the index. If an asset with the same path was already added, it is replaced.
+         *
+         * @param asset The asset to add.
+         * @throws IllegalArgumentException If the hash of the asset is not a valid SHA-1 hash.
+         */
+        @Override
+        public void accept(Asset asset) {
+            if (count == paths.length) {
+                paths = Arrays.copyOf(paths, count * 2);
+                hashes = Arrays.copyOf(hashes, count * 2 * HASH_LENGTH);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            if (!HashUtils.fromHex(asset.hash(), hashes, count * HASH_LENGTH)) {
+                throw new IllegalArgumentException("Invalid hash '" + asset.hash() + "' for asset with path '" + asset.path() + "'.");
+            }
+            paths[count] = asset.path();
+            sizes[count] = asset.size();
+            count++;
+        }
+
+        /**
+         * Adds all the assets of an asset index file.
+         *
+         * @param file The asset index file.
+         * @return The time spent reading the file, as opposed to parsing it, in nanoseconds.
+         * @throws IOException If an I/O error occurs or if the file is not a valid asset index.
+         */
+        public long read(Path file) throws IOException {
+            try {
+                return AssetIndexReader.read(file, this);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Adds the assets of an asset index file whose path is accepted by a filter. The other assets are dropped
+         * as soon as they are read, without being stored.
+         *
+         * @param file The asset index file.
+         * @param pathFilter The filter applied to the paths of the assets.
+         * @return The time spent reading the file, as opposed to parsing it, in nanoseconds.
+         * @throws IOException If an I/O error occurs or if the file is not a valid asset index.
+         */
+        public long read(Path file, Predicate<String> pathFilter) throws IOException {
+            try {
+                return AssetIndexReader.read(file, asset -> {
+                    if (pathFilter.test(asset.path())) {
+                        accept(asset);
+                    }
+                });
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @return The index containing all the assets added so far.
+         */
+        public AssetIndex build() {
+            int[] order = sortIndices(count, (a, b) -> paths[a].compareTo(paths[b]));
+            // The sort is stable, so of several assets with the same path the last one added is the last one in order
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (i + 1 == count || !paths[order[i]].equals(paths[order[i + 1]])) {
+                    order[unique++] = order[i];
+                }
+            }
+            String[] sortedPaths = new String[unique];
+            byte[] sortedHashes = new byte[unique * HASH_LENGTH];
+            long[] sortedSizes = new long[unique];
+            for (int i = 0; i < unique; i++) {
+                int j = order[i];
+                sortedPaths[i] = paths[j];
+                System.arraycopy(hashes, j * HASH_LENGTH, sortedHashes, i * HASH_LENGTH, HASH_LENGTH);
+                sortedSizes[i] = sizes[j];
+            }
+            return new AssetIndex(sortedPaths, sortedHashes, sortedSizes);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for asset index files. Unlike {@link JsonUtils#readIndexesJson(String, Consumer)}, it doesn't need
+ * the whole file in memory: the file is read by chunks into a fixed buffer and the assets are passed to the consumer
+ * as soon as they are read, so its memory usage doesn't depend on the size of the index.<br>
+ * Strings are kept as raw UTF-8 bytes in a reused array, and only asset paths and hashes are turned into {@link String}s.
+ * Escape sequences are supported.
+ */
+final class AssetIndexReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HASH_KEY = "hash".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SIZE_KEY = "size".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key of the value being read in an asset object.
+     */
+    private enum Key {
+        HASH,
+        SIZE,
+        OTHER
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final Consumer<Asset> consumer;
+    private long position;
+    /**
+     * The time spent waiting for the channel, in nanoseconds.
+     */
+    private long readNanos;
+
+    /**
+     * The bytes of the last string read, which aren't decoded until needed.
+     */
+    private byte[] str = new byte[256];
+    private int strLength;
+    /**
+     * Whether each of the opened containers is an object (or an array).
+     */
+    private boolean[] objects = new boolean[8];
+    private int depth;
+
+    private AssetIndexReader(ReadableByteChannel channel, Consumer<Asset> consumer) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        this.consumer = consumer;
+    }
+
+    /**
+     * Reads an asset index file and passes each asset it describes to the given consumer.
+     *
+     * @param file The asset index file.
+     * @param consumer The consumer receiving the assets read.
+     * @return The time spent reading the file, as opposed to parsing it, in nanoseconds.
+     * @throws IOException If an I/O error occurs or if the file is not valid json.
+     */
+    static long read(Path file, Consumer<Asset> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, consumer);
+        }
+    }
+
+    /**
+     * Reads the content of an asset index from a channel and passes each asset it describes to the given consumer.
+     * The channel is not closed.
+     *
+     * @param channel The channel providing the content of the asset index.
+     * @param consumer The consumer receiving the assets read.
+     * @return The time spent waiting for the channel, as opposed to parsing its content, in nanoseconds.
+     * @throws IOException If an I/O error occurs or if the content is not valid json.
+     */
+    static long read(ReadableByteChannel channel, Consumer<Asset> consumer) throws IOException {
+        AssetIndexReader reader = new AssetIndexReader(channel, consumer);
+        reader.read();
+        return reader.readNanos;
+    }
+
+    private void read() throws IOException {
+        boolean expectKey = false;
+        Key key = Key.OTHER;
+        String assetPath = null;
+        String assetHash = null;
+        long assetSize = 0;
+
+        int b;
+        while ((b = next()) != -1) {
+            switch (b) {
+                case ' ', '\t', '\n', '\r' -> {
+                }
+                case '{', '[' -> {
+                    push(b == '{');
+                    expectKey = b == '{';
+                }
+                case '}', ']' -> {
+                    if (depth == 0 || objects[depth - 1] != (b == '}')) {
+                        throw error("Unexpected '" + (char) b + "'");
+                    }
+                    // The object describing an asset is over
+                    if (depth == 3 && assetPath != null && assetHash != null) {
+                        consumer.accept(new Asset(assetPath, assetHash, assetSize));
+                    }
+                    if (depth <= 3) {
+                        assetPath = null;
+                        assetHash = null;
+                        assetSize = 0;
+                    }
+                    depth--;
+                    expectKey = false;
+                }
+                case ',' -> expectKey = depth > 0 && objects[depth - 1];
+                case ':' -> expectKey = false;
+                case '"' -> {
+                    readString();
+                    if (expectKey) {
+                        // There are only assets paths at depth 2
+                        if (depth == 2) {
+                            assetPath = decodeString();
+                        } else if (depth == 3) {
+                            key = matches(HASH_KEY) ? Key.HASH : matches(SIZE_KEY) ? Key.SIZE : Key.OTHER;
+                        }
+                    } else if (depth == 3 && key == Key.HASH) {
+                        assetHash = decodeString();
+                    }
+                }
+                case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                    long number = readNumber(b);
+                    if (depth == 3 && key == Key.SIZE) {
+                        assetSize = number;
+                    }
+                }
+                case 't', 'f', 'n' -> readLiteral(b);
+                default -> throw error("Unexpected character '" + (char) b + "'");
+            }
+        }
+        if (depth != 0) {
+            throw error("Unexpected end of file");
+        }
+    }
+
+    /**
+     * @return The next byte of the channel, or -1 if the end of the channel was reached.
+     */
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            long start = System.nanoTime();
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            readNanos += System.nanoTime() - start;
+            buffer.flip();
+            if (read == -1) {
+                return -1;
+            }
+        }
+        position++;
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * @return The next byte of the channel, failing if the end of the channel was reached.
+     */
+    private int nextNonEof() throws IOException {
+        int b = next();
+        if (b == -1) {
+            throw error("Unexpected end of file");
+        }
+        return b;
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+        }
+        objects[depth++] = object;
+    }
+
+    /**
+     * Reads a string, the opening quote being already read, and stores its UTF-8 bytes in {@link #str}.
+     */
+    private void readString() throws IOException {
+        strLength = 0;
+        while (true) {
+            // Fast path: copy the plain bytes available in the buffer at once
+            int start = buffer.position();
+            int limit = buffer.limit();
+            byte[] array = buffer.array();
+            int i = start;
+            while (i < limit && array[i] != '"' && array[i] != '\\') {
+                i++;
+            }
+            appendBytes(array, start, i - start);
+            position += i - start;
+            buffer.position(i);
+
+            if (i == limit) {
+                if (next() == -1) {
+                    throw error("Unterminated string");
+                }
+                // 'next' refilled the buffer, put back the byte it consumed
+                buffer.position(buffer.position() - 1);
+                position--;
+                continue;
+            }
+            int b = next();
+            if (b == '"') {
+                return;
+            }
+            readEscape();
+        }
+    }
+
+    /**
+     * Reads an escape sequence, the backslash being already read.
+     */
+    private void readEscape() throws IOException {
+        int b = nextNonEof();
+        switch (b) {
+            case '"', '\\', '/' -> appendByte(b);
+            case 'b' -> appendByte('\b');
+            case 'f' -> appendByte('\f');
+            case 'n' -> appendByte('\n');
+            case 'r' -> appendByte('\r');
+            case 't' -> appendByte('\t');
+            case 'u' -> {
+                int codePoint = readHexChar();
+                if (Character.isHighSurrogate((char) codePoint)) {
+                    // The low surrogate must follow as another escape sequence
+                    if (nextNonEof() != '\\' || nextNonEof() != 'u') {
+                        throw error("Expected a low surrogate escape sequence");
+                    }
+                    int low = readHexChar();
+                    if (!Character.isLowSurrogate((char) low)) {
+                        throw error("Invalid low surrogate");
+                    }
+                    codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                } else if (Character.isLowSurrogate((char) codePoint)) {
+                    throw error("Unexpected low surrogate");
+                }
+                appendCodePoint(codePoint);
+            }
+            default -> throw error("Invalid escape sequence '\\" + (char) b + "'");
+        }
+    }
+
+    private int readHexChar() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(nextNonEof(), 16);
+            if (digit == -1) {
+                throw error("Invalid unicode escape sequence");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a number, its first character being already read. Only the integer part is returned as asset sizes
+     * are integers, the fraction and exponent are skipped.
+     */
+    private long readNumber(int first) throws IOException {
+        boolean negative = first == '-';
+        long value = negative ? 0 : first - '0';
+        boolean integerPart = true;
+        while (true) {
+            if (!buffer.hasRemaining() && next() != -1) {
+                // 'next' refilled the buffer, put back the byte it consumed
+                buffer.position(buffer.position() - 1);
+                position--;
+            }
+            if (!buffer.hasRemaining()) {
+                break;
+            }
+            byte b = buffer.get(buffer.position());
+            if (b >= '0' && b <= '9') {
+                if (integerPart) {
+                    value = value * 10 + (b - '0');
+                }
+            } else if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                integerPart = false;
+            } else {
+                break;
+            }
+            buffer.get();
+            position++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips a 'true', 'false' or 'null' literal, its first character being already read.
+     */
+    private void readLiteral(int first) throws IOException {
+        String literal = first == 't' ? "true" : first == 'f' ? "false" : "null";
+        for (int i = 1; i < literal.length(); i++) {
+            if (nextNonEof() != literal.charAt(i)) {
+                throw error("Invalid literal, expected '" + literal + "'");
+            }
+        }
+    }
+
+    private boolean matches(byte[] bytes) {
+        return Arrays.equals(str, 0, strLength, bytes, 0, bytes.length);
+    }
+
+    private String decodeString() {
+        return new String(str, 0, strLength, StandardCharsets.UTF_8);
+    }
+
+    private void appendBytes(byte[] bytes, int offset, int length) {
+        ensureStrCapacity(length);
+        System.arraycopy(bytes, offset, str, strLength, length);
+        strLength += length;
+    }
+
+    private void appendByte(int b) {
+        ensureStrCapacity(1);
+        str[strLength++] = (byte) b;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendByte(codePoint);
+        } else if (codePoint < 0x800) {
+            appendByte(0xC0 | (codePoint >> 6));
+            appendByte(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendByte(0xE0 | (codePoint >> 12));
+            appendByte(0x80 | ((codePoint >> 6) & 0x3F));
+            appendByte(0x80 | (codePoint & 0x3F));
+        } else {
+            appendByte(0xF0 | (codePoint >> 18));
+            appendByte(0x80 | ((codePoint >> 12) & 0x3F));
+            appendByte(0x80 | ((codePoint >> 6) & 0x3F));
+            appendByte(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void ensureStrCapacity(int additional) {
+        if (strLength + additional > str.length) {
+            str = Arrays.copyOf(str, Math.max(str.length * 2, strLength + additional));
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at byte " + position + " of the asset index.");
+    }
+}
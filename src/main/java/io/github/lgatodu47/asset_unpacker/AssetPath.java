@@ -0,0 +1,292 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A path of an {@link AssetFileSystem}, such as {@code /minecraft/sounds/ambient/cave/cave1.ogg}.
+ * The paths use '/' as separator and the root directory is the equivalent of the output directory of an unpack.
+ */
+final class AssetPath implements Path {
+    private final AssetFileSystem fileSystem;
+    /**
+     * The path without duplicate or trailing separators, "/" for the root directory and "" for the empty path.
+     */
+    private final String path;
+    /**
+     * The start of each name of the path, computed when first needed.
+     */
+    private volatile int[] offsets;
+
+    AssetPath(AssetFileSystem fileSystem, String path) {
+        this.fileSystem = fileSystem;
+        this.path = normalizeSeparators(path);
+    }
+
+    private static String normalizeSeparators(String path) {
+        if (path.indexOf('\u0000') != -1) {
+            throw new InvalidPathException(path, "Nul character not allowed");
+        }
+        if (!path.contains("//") && (path.length() <= 1 || !path.endsWith("/"))) {
+            return path;
+        }
+        StringBuilder builder = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c != '/' || builder.isEmpty() || builder.charAt(builder.length() - 1) != '/') {
+                builder.append(c);
+            }
+        }
+        if (builder.length() > 1 && builder.charAt(builder.length() - 1) == '/') {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    private int[] offsets() {
+        int[] result = offsets;
+        if (result == null) {
+            List<Integer> starts = new ArrayList<>();
+            if (path.isEmpty()) {
+                // The empty path has a single empty name
+                starts.add(0);
+            }
+            for (int i = 0; i < path.length(); i++) {
+                if (path.charAt(i) != '/' && (i == 0 || path.charAt(i - 1) == '/')) {
+                    starts.add(i);
+                }
+            }
+            offsets = result = starts.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    private int nameEnd(int i) {
+        int[] offsets = offsets();
+        return i + 1 < offsets.length ? offsets[i + 1] - 1 : path.length();
+    }
+
+    private AssetPath checkPath(Path other) {
+        Objects.requireNonNull(other, "other");
+        if (!(other instanceof AssetPath assetPath)) {
+            throw new ProviderMismatchException();
+        }
+        return assetPath;
+    }
+
+    @Override
+    public AssetFileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return path.startsWith("/");
+    }
+
+    @Override
+    public AssetPath getRoot() {
+        return isAbsolute() ? fileSystem.root() : null;
+    }
+
+    @Override
+    public AssetPath getFileName() {
+        int count = getNameCount();
+        if (count == 0) {
+            return null;
+        }
+        if (count == 1 && !isAbsolute()) {
+            return this;
+        }
+        return new AssetPath(fileSystem, path.substring(offsets()[count - 1]));
+    }
+
+    @Override
+    public AssetPath getParent() {
+        int count = getNameCount();
+        if (count == 0 || (count == 1 && !isAbsolute())) {
+            return null;
+        }
+        if (count == 1) {
+            return fileSystem.root();
+        }
+        return new AssetPath(fileSystem, path.substring(0, offsets()[count - 1] - 1));
+    }
+
+    @Override
+    public int getNameCount() {
+        return offsets().length;
+    }
+
+    @Override
+    public AssetPath getName(int index) {
+        if (index < 0 || index >= getNameCount()) {
+            throw new IllegalArgumentException("Invalid name index " + index + " for path '" + path + "'.");
+        }
+        return new AssetPath(fileSystem, path.substring(offsets()[index], nameEnd(index)));
+    }
+
+    @Override
+    public AssetPath subpath(int beginIndex, int endIndex) {
+        if (beginIndex < 0 || endIndex > getNameCount() || beginIndex >= endIndex) {
+            throw new IllegalArgumentException("Invalid subpath " + beginIndex + ".." + endIndex + " for path '" + path + "'.");
+        }
+        return new AssetPath(fileSystem, path.substring(offsets()[beginIndex], nameEnd(endIndex - 1)));
+    }
+
+    @Override
+    public boolean startsWith(Path other) {
+        AssetPath prefix = checkPath(other);
+        if (prefix.path.isEmpty() || path.isEmpty()) {
+            return prefix.path.equals(path);
+        }
+        if (prefix.isAbsolute() != isAbsolute() || prefix.getNameCount() > getNameCount()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.getNameCount(); i++) {
+            if (!nameEquals(i, prefix, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endsWith(Path other) {
+        AssetPath suffix = checkPath(other);
+        if (suffix.isAbsolute() || suffix.path.isEmpty() || path.isEmpty()) {
+            return suffix.path.equals(path);
+        }
+        int offset = getNameCount() - suffix.getNameCount();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.getNameCount(); i++) {
+            if (!nameEquals(offset + i, suffix, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nameEquals(int i, AssetPath other, int j) {
+        int start = offsets()[i];
+        int length = nameEnd(i) - start;
+        int otherStart = other.offsets()[j];
+        return length == other.nameEnd(j) - otherStart && path.regionMatches(start, other.path, otherStart, length);
+    }
+
+    @Override
+    public AssetPath normalize() {
+        List<String> names = new ArrayList<>();
+        boolean changed = false;
+        for (int i = 0; i < getNameCount(); i++) {
+            String name = path.substring(offsets()[i], nameEnd(i));
+            if (name.equals(".")) {
+                changed = true;
+            } else if (name.equals("..")) {
+                if (!names.isEmpty() && !names.get(names.size() - 1).equals("..")) {
+                    names.remove(names.size() - 1);
+                    changed = true;
+                } else if (isAbsolute()) {
+                    // Nothing is above the root directory
+                    changed = true;
+                } else {
+                    names.add(name);
+                }
+            } else {
+                names.add(name);
+            }
+        }
+        if (!changed) {
+            return this;
+        }
+        return new AssetPath(fileSystem, (isAbsolute() ? "/" : "") + String.join("/", names));
+    }
+
+    @Override
+    public AssetPath resolve(Path other) {
+        AssetPath child = checkPath(other);
+        if (child.isAbsolute() || path.isEmpty()) {
+            return child;
+        }
+        if (child.path.isEmpty()) {
+            return this;
+        }
+        return new AssetPath(fileSystem, path.equals("/") ? "/" + child.path : path + "/" + child.path);
+    }
+
+    @Override
+    public AssetPath relativize(Path other) {
+        AssetPath target = checkPath(other);
+        if (target.isAbsolute() != isAbsolute()) {
+            throw new IllegalArgumentException("'" + target + "' can't be relativized against '" + this + "'.");
+        }
+        if (path.isEmpty()) {
+            return target;
+        }
+        int count = path.equals("/") ? 0 : getNameCount();
+        int targetCount = target.path.equals("/") || target.path.isEmpty() ? 0 : target.getNameCount();
+        int common = 0;
+        while (common < count && common < targetCount && nameEquals(common, target, common)) {
+            common++;
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = common; i < count; i++) {
+            result.append(result.isEmpty() ? ".." : "/..");
+        }
+        if (common < targetCount) {
+            if (!result.isEmpty()) {
+                result.append('/');
+            }
+            result.append(target.path, target.offsets()[common], target.path.length());
+        }
+        return new AssetPath(fileSystem, result.toString());
+    }
+
+    @Override
+    public URI toUri() {
+        return fileSystem.toUri(toAbsolutePath().normalize().path);
+    }
+
+    @Override
+    public AssetPath toAbsolutePath() {
+        return isAbsolute() ? this : new AssetPath(fileSystem, "/" + path);
+    }
+
+    @Override
+    public AssetPath toRealPath(LinkOption... options) throws IOException {
+        AssetPath real = toAbsolutePath().normalize();
+        fileSystem.provider().checkAccess(real);
+        return real;
+    }
+
+    @Override
+    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
+        throw new UnsupportedOperationException("The asset file system can't be watched.");
+    }
+
+    @Override
+    public int compareTo(Path other) {
+        return path.compareTo(((AssetPath) other).path);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof AssetPath other && other.fileSystem == fileSystem && other.path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
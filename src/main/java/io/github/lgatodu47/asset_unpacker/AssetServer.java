@@ -0,0 +1,243 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the assets over HTTP by their unpacked path, without unpacking them: a request for
+ * {@code /minecraft/lang/fr_fr.json} is answered with the object file of that asset. When several asset indexes are
+ * served, the paths start with the version, like the subdirectories of an unpack.<br>
+ * The server only listens on the loopback address. The indexes are read once, and an asset is looked up by path with
+ * a binary search in its index. The hash of an asset is its strong ETag, so clients revalidating an asset they already
+ * have get a '304 Not Modified' without the object file being touched.
+ * The objects up to {@link #MAX_CACHED_SIZE} bytes are kept in an LRU cache of at most {@link #CACHE_BYTES} bytes,
+ * larger ones are streamed from the object file.
+ */
+final class AssetServer {
+    /**
+     * The maximum total size of the objects kept in memory.
+     */
+    static final long CACHE_BYTES = 64L * 1024 * 1024;
+    /**
+     * The size up to which an object is kept in memory, which covers the textures, models and translations.
+     */
+    static final int MAX_CACHED_SIZE = 256 * 1024;
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "json", "application/json",
+            "mcmeta", "application/json",
+            "png", "image/png",
+            "ogg", "audio/ogg",
+            "txt", "text/plain; charset=utf-8",
+            "lang", "text/plain; charset=utf-8");
+
+    private final AssetUnpackerConfig config;
+    private final Map<String, AssetIndex> indexes;
+    private final Path objectsDir;
+    private final ObjectCache cache = new ObjectCache();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param config The config of the unpacker, the output options don't apply.
+     * @throws UnpackException If the asset indexes can't be read.
+     */
+    AssetServer(AssetUnpackerConfig config) {
+        this.config = config;
+        this.indexes = MinecraftAssetUnpacker.readIndexes(config, new UnpackStats());
+        this.objectsDir = MinecraftAssetUnpacker.objectsDir(config);
+    }
+
+    /**
+     * Starts serving the assets in the background.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The address the server listens on.
+     * @throws UnpackException If the server can't be started.
+     */
+    InetSocketAddress start(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UnpackException("Failed to start the asset server on port " + port + ".", e);
+        }
+        executor = Executors.newFixedThreadPool(config.threads());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server, waiting at most a second for the current requests to complete.
+     */
+    void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Asset asset = find(exchange.getRequestURI().getPath());
+            if (asset == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            String etag = '"' + asset.hash() + '"';
+            headers.set("ETag", etag);
+            // The same path may be another asset once the indexes change, so clients always revalidate
+            headers.set("Cache-Control", "no-cache");
+            if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            headers.set("Content-Type", contentType(asset.path()));
+
+            Path objectFile = objectsDir.resolve(asset.objectName());
+            try {
+                if (asset.size() <= MAX_CACHED_SIZE) {
+                    byte[] content = cache.get(asset.hash(), objectFile);
+                    if (head) {
+                        headers.set("Content-Length", Integer.toString(content.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, content.length);
+                        exchange.getResponseBody().write(content);
+                    }
+                } else {
+                    try (FileChannel channel = FileChannel.open(objectFile, StandardOpenOption.READ)) {
+                        long size = channel.size();
+                        if (head) {
+                            headers.set("Content-Length", Long.toString(size));
+                            exchange.sendResponseHeaders(200, -1);
+                        } else {
+                            exchange.sendResponseHeaders(200, size);
+                            transfer(channel, size, exchange.getResponseBody());
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                System.err.println("The object file of asset '" + asset.path() + "' is missing! (" + asset.hash() + ")");
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Most likely the client going away, nothing was cached from this request
+            System.err.println("Failed to serve '" + exchange.getRequestURI() + "'! (" + e + ")");
+        }
+    }
+
+    /**
+     * @param path The decoded path of a request.
+     * @return The asset served at this path, or {@code null} if there is none.
+     */
+    private Asset find(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        path = path.substring(1);
+        if (!config.multipleIndexes()) {
+            return indexes.get(config.assetsIndexes().get(0)).findByPath(path);
+        }
+        int separator = path.indexOf('/');
+        AssetIndex index = separator == -1 ? null : indexes.get(path.substring(0, separator));
+        return index == null ? null : index.findByPath(path.substring(separator + 1));
+    }
+
+    /**
+     * @param ifNoneMatch The value of the If-None-Match header of a request.
+     * @param etag The ETag of the asset.
+     * @return If the client already has this version of the asset.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(String path) {
+        int dot = path.lastIndexOf('.');
+        String extension = dot == -1 ? "" : path.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    /**
+     * Sends the content of a large object file, without loading it in memory.
+     */
+    private static void transfer(FileChannel channel, long size, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = 0;
+        while (position < size) {
+            long transferred = channel.transferTo(position, size - position, target);
+            if (transferred <= 0) {
+                throw new IOException("The object file was truncated while being sent.");
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * The content of the recently served small objects, by hash. The least recently served ones are evicted once the
+     * total size exceeds {@link #CACHE_BYTES}.
+     */
+    private static final class ObjectCache {
+        private final LinkedHashMap<String, byte[]> objects = new LinkedHashMap<>(256, 0.75f, true);
+        private long bytes;
+
+        byte[] get(String hash, Path objectFile) throws IOException {
+            synchronized (this) {
+                byte[] content = objects.get(hash);
+                if (content != null) {
+                    return content;
+                }
+            }
+            // Read outside the lock, two threads may read the same object but neither blocks the cache hits
+            byte[] content = Files.readAllBytes(objectFile);
+            synchronized (this) {
+                byte[] previous = objects.put(hash, content);
+                bytes += content.length - (previous == null ? 0 : previous.length);
+                Iterator<byte[]> iterator = objects.values().iterator();
+                while (bytes > CACHE_BYTES && iterator.hasNext()) {
+                    bytes -= iterator.next().length;
+                    iterator.remove();
+                }
+            }
+            return content;
+        }
+    }
+}
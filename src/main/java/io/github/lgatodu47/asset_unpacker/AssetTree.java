@@ -0,0 +1,129 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The directory tree formed by the paths of an asset index, as a trie of path segments.<br>
+ * It is built in a single pass over the sorted paths: all the paths starting with a same directory are next to each
+ * other, so the node of a directory is always the last child added to its parent. The children are then sorted by
+ * name to be looked up with a binary search.
+ */
+final class AssetTree {
+    private final Node root = new Node("");
+
+    AssetTree(AssetIndex index) {
+        for (int i = 0; i < index.size(); i++) {
+            String path = index.path(i);
+            Node node = root;
+            int start = 0;
+            while (start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end == -1) {
+                    end = path.length();
+                }
+                if (end > start) {
+                    node = node.lastChild(path.substring(start, end));
+                }
+                start = end + 1;
+            }
+            if (node != root) {
+                node.asset = i;
+            }
+        }
+        root.sort();
+    }
+
+    /**
+     * @return The node of the root directory.
+     */
+    Node root() {
+        return root;
+    }
+
+    /**
+     * A file or directory of the tree.
+     */
+    static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final String name;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        /**
+         * The index of the asset of a file, in path order, or -1 for a directory.
+         */
+        private int asset = -1;
+
+        private Node(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return The name of this file or directory.
+         */
+        String name() {
+            return name;
+        }
+
+        /**
+         * @return If this node is a directory.
+         */
+        boolean isDirectory() {
+            return asset == -1;
+        }
+
+        /**
+         * @return The index of the asset of this file in the asset index.
+         */
+        int asset() {
+            return asset;
+        }
+
+        /**
+         * @return The files and directories of this directory, sorted by name.
+         */
+        Node[] children() {
+            return children;
+        }
+
+        /**
+         * @param name The name of a file or directory of this directory.
+         * @return The file or directory, or {@code null} if there is none.
+         */
+        Node child(String name) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comparison = children[mid].name.compareTo(name);
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else if (comparison > 0) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private Node lastChild(String name) {
+            if (childCount > 0 && children[childCount - 1].name.equals(name)) {
+                return children[childCount - 1];
+            }
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(4, childCount * 2));
+            }
+            return children[childCount++] = new Node(name);
+        }
+
+        private void sort() {
+            children = Arrays.copyOf(children, childCount);
+            Arrays.sort(children, Comparator.comparing(Node::name));
+            for (Node child : children) {
+                child.sort();
+            }
+        }
+    }
+}
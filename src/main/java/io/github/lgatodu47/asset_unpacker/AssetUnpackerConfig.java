@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
 import java.util.regex.Pattern;
 
 /**
@@ -11,25 +13,209 @@ import java.util.regex.Pattern;
  * Use this record to launch the asset unpacker in dev environment.
  *
  * @param mcDir The Minecraft home directory.
- * @param assetsIndex The asset index version.
- * @param outputDir The assets output directory. <strong>NOTE: any existing file will be replaced!</strong>
+ * @param assetsIndexes The asset index versions. When there are several of them, each one is unpacked in its own
+ *                      subdirectory of the output directory, named after the version.
+ * @param outputDir The assets output directory, or a '.zip' or '.jar' archive in which the assets are written instead.
+ *                  <strong>NOTE: any existing file will be replaced!</strong>
+ * @param threads The amount of threads copying the assets. A value of 1 unpacks the assets sequentially.
+ * @param virtualThreads If each asset should be copied on its own virtual thread instead. Requires Java 21 or above, it falls back to {@code threads} otherwise.
+ * @param maxInFlight The maximum amount of assets being copied at once when using virtual threads.
+ * @param incremental How the existing content of the output directory is handled, see {@link IncrementalMode}.
+ * @param outputStrategy How the output files are created from the object files, see {@link OutputStrategy}.
+ * @param verify If the size and the hash of the object files should be checked against the index while unpacking them.
+ * @param moveAside If the existing output directory should be renamed and deleted in the background while unpacking,
+ *                  instead of being emptied before unpacking.
+ * @param pathFilter The assets to unpack, see {@link PathFilter}. The other assets are skipped while the index is read.
+ * @param objectManifest If the object files found in the Minecraft directory should be remembered in a manifest next to
+ *                       the output, so that the next runs don't have to check each of them.
+ * @param copyThreshold The size in bytes up to which object files are copied through a buffer, larger files are
+ *                      transferred by the system. See {@link UnpackResult#copyMetrics()} to tune it.
+ * @param watch If the unpacker should keep running after the unpack, and unpack again the assets affected by the changes
+ *              made to the asset indexes and to the object files. Requires an output directory.
+ * @param resume If the unpack should resume an interrupted unpack to the same output directory, skipping the assets
+ *               recorded in its journal instead of emptying it. See {@link UnpackJournal}.
+ * @param base The version of an older asset index, or {@code null}. When present, only the assets added or changed
+ *             since that version are unpacked, and the differences are written to a change manifest next to the output,
+ *             see {@link IndexDiff}. Requires a single asset index, and can't be combined with the watch mode or an
+ *             incremental mode.
+ * @param dedup How the outputs of the assets sharing the same object are created, see {@link DedupMode}.
+ * @param servePort The port on which the assets are served over HTTP instead of being unpacked, or 0 to unpack them.
+ *                  See {@link AssetServer}. Can't be combined with the watch mode or a base version.
  */
-public record AssetUnpackerConfig(Path mcDir, String assetsIndex, Path outputDir) {
+public record AssetUnpackerConfig(Path mcDir, List<String> assetsIndexes, Path outputDir, int threads, boolean virtualThreads, int maxInFlight,
+                                  IncrementalMode incremental, OutputStrategy outputStrategy, boolean verify, boolean moveAside,
+                                  PathFilter pathFilter, boolean objectManifest, int copyThreshold, boolean watch, boolean resume, String base, DedupMode dedup,
+                                  int servePort) {
     /**
      * A pattern that matches for version names.
      */
     public static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+\\.\\d+(\\.?(\\d+)?)+)");
+    /**
+     * The default amount of threads copying the assets, which is the amount of available processors.
+     */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * The default maximum amount of assets being copied at once when using virtual threads.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    /**
+     * The default size up to which object files are copied through a buffer.
+     */
+    public static final int DEFAULT_COPY_THRESHOLD = 256 * 1024;
+    /**
+     * The maximum copy threshold. The buffered copies loop over a small buffer, so much larger files are better
+     * transferred by the system.
+     */
+    public static final int MAX_COPY_THRESHOLD = 64 * 1024 * 1024;
+
+    public AssetUnpackerConfig {
+        assetsIndexes = List.copyOf(assetsIndexes);
+        if(assetsIndexes.isEmpty()) {
+            throw new IllegalArgumentException("At least one asset index is required.");
+        }
+        if(threads < 1) {
+            throw new IllegalArgumentException("The amount of threads must be at least 1, got " + threads + ".");
+        }
+        if(maxInFlight < 1) {
+            throw new IllegalArgumentException("The maximum amount of in-flight copies must be at least 1, got " + maxInFlight + ".");
+        }
+        Objects.requireNonNull(incremental, "incremental");
+        Objects.requireNonNull(outputStrategy, "outputStrategy");
+        Objects.requireNonNull(pathFilter, "pathFilter");
+        Objects.requireNonNull(dedup, "dedup");
+        if(copyThreshold < 0 || copyThreshold > MAX_COPY_THRESHOLD) {
+            throw new IllegalArgumentException("The copy threshold must be between 0 and " + MAX_COPY_THRESHOLD + " bytes, got " + copyThreshold + ".");
+        }
+        if(watch && isArchive(outputDir) && !Files.isDirectory(outputDir)) {
+            throw new IllegalArgumentException("The watch mode requires an output directory.");
+        }
+        if(base != null && (assetsIndexes.size() != 1 || assetsIndexes.contains(base) || watch)) {
+            throw new IllegalArgumentException("The base version requires a single other asset index and can't be watched.");
+        }
+        if(base != null && incremental != IncrementalMode.OFF) {
+            // Only the differences are unpacked, the incremental cleanup would delete every output outside of them
+            throw new IllegalArgumentException("The base version can't be combined with an incremental mode.");
+        }
+        if(servePort < 0 || servePort > 65535 || (servePort != 0 && (watch || base != null))) {
+            throw new IllegalArgumentException("The serve port must be between 1 and 65535, and can't be combined with the watch mode or a base version.");
+        }
+    }
+
+    /**
+     * Creates a config with the default options.
+     *
+     * @param mcDir The Minecraft home directory.
+     * @param assetsIndex The asset index version.
+     * @param outputDir The assets output directory.
+     */
+    public AssetUnpackerConfig(Path mcDir, String assetsIndex, Path outputDir) {
+        this(builder(mcDir, List.of(assetsIndex), outputDir));
+    }
+
+    private AssetUnpackerConfig(Builder builder) {
+        this(builder.mcDir, builder.assetsIndexes, builder.outputDir, builder.threads, builder.virtualThreads, builder.maxInFlight,
+                builder.incremental, builder.outputStrategy, builder.verify, builder.moveAside, builder.pathFilter, builder.objectManifest,
+                builder.copyThreshold, builder.watch, builder.resume, builder.base, builder.dedup, builder.servePort);
+    }
+
+    /**
+     * Creates a builder of a config, starting from the default options.
+     *
+     * @param mcDir The Minecraft home directory.
+     * @param assetsIndexes The asset index versions.
+     * @param outputDir The assets output directory, or a '.zip' or '.jar' archive.
+     * @return The builder.
+     */
+    public static Builder builder(Path mcDir, List<String> assetsIndexes, Path outputDir) {
+        return new Builder(mcDir, assetsIndexes, outputDir);
+    }
+
+    /**
+     * @return A builder starting from the options of this config.
+     */
+    public Builder toBuilder() {
+        return builder(mcDir, assetsIndexes, outputDir).threads(threads).virtualThreads(virtualThreads).maxInFlight(maxInFlight)
+                .incremental(incremental).outputStrategy(outputStrategy).verify(verify).moveAside(moveAside).pathFilter(pathFilter)
+                .objectManifest(objectManifest).copyThreshold(copyThreshold).watch(watch).resume(resume).base(base).dedup(dedup)
+                .servePort(servePort);
+    }
+
+    /**
+     * @return If several asset indexes are unpacked, each in its own subdirectory of the output directory.
+     */
+    public boolean multipleIndexes() {
+        return assetsIndexes.size() > 1;
+    }
+
+    /**
+     * The incremental mode, the output strategy, resuming and moving the old output aside don't apply to archives,
+     * which are always written from scratch.
+     *
+     * @return If the assets are written to an archive rather than to a directory.
+     */
+    public boolean archiveOutput() {
+        return isArchive(outputDir) && !Files.isDirectory(outputDir);
+    }
+
+    /**
+     * @param incremental The incremental mode of the copy.
+     * @return A copy of this config with another incremental mode.
+     */
+    AssetUnpackerConfig withIncremental(IncrementalMode incremental) {
+        return toBuilder().incremental(incremental).build();
+    }
+
+    /**
+     * @param assetsIndex One of the asset index versions.
+     * @return The directory in which the assets of the given asset index are unpacked.
+     */
+    public Path outputDir(String assetsIndex) {
+        return multipleIndexes() ? outputDir.resolve(assetsIndex) : outputDir;
+    }
 
     /**
      * Parses an array of String with arguments to the actual config.
      * Here are the list of arguments:
      * <li>anything containing "help": will print a help message to the console.</li>
      * <li>mcd: path to a Minecraft home directory. If it is absent, it will try to resolve it itself.</li>
-     * <li>ai: version of the asset index. <strong>This argument is mandatory.</strong></li>
-     * <li>od: path to an output directory. It defaults to 'runDir/unpacked/assetIndexVersion' if not specified.</li>
+     * <li>ai: version of the asset index. Several versions can be separated by commas, and globs such as '1.1*' or
+     * 'all' select the matching asset indexes found in 'mcDir/assets/indexes'. <strong>This argument is mandatory.</strong></li>
+     * <li>od: path to an output directory. It defaults to 'runDir/unpacked/assetIndexVersion' if not specified,
+     * or to 'runDir/unpacked' when there are several asset indexes. A path to a '.zip' or '.jar' file, whose parent
+     * directory exists, writes the assets to that archive instead.</li>
      * <li>reo: a boolean controlling whether the existing files the output directory should be replaced or not
      * In other words, the program won't run if this option is missing or set to false and the output directory
      * is not empty.</li>
+     * <li>threads: the amount of threads copying the assets. It defaults to the amount of available processors.</li>
+     * <li>virtual: a boolean controlling whether each asset should be copied on its own virtual thread (Java 21+).</li>
+     * <li>maxinflight: the maximum amount of assets copied at once with virtual threads. It defaults to 256.</li>
+     * <li>incremental: one of 'off', 'size' or 'hash'. When not 'off', the output directory is not emptied: outputs matching
+     * their asset are kept and only new or changed assets are copied. It defaults to 'off'.</li>
+     * <li>strategy: one of 'copy', 'hardlink', 'symlink' or 'reflink'. Controls how the output files are created from
+     * the object files. It defaults to 'copy'.</li>
+     * <li>verify: a boolean controlling whether the size and the hash of the object files should be checked while
+     * unpacking them. Corrupted objects are reported as failures.</li>
+     * <li>moveaside: a boolean controlling whether the existing output directory should be renamed and deleted in the
+     * background while unpacking, instead of being emptied before unpacking.</li>
+     * <li>include: comma separated globs of the paths of the assets to unpack, such as 'minecraft/lang/*' or
+     * 'minecraft/sounds/music/**'. All the assets are unpacked if it is absent.</li>
+     * <li>exclude: comma separated globs of the paths of the assets to skip.</li>
+     * <li>manifest: a boolean controlling whether the object files found in the Minecraft directory should be remembered
+     * in a manifest next to the output directory. The next runs only list the 'objects' subdirectories that changed
+     * instead of checking every object file.</li>
+     * <li>copythreshold: the size up to which object files are copied through a buffer, in bytes or with a 'k' or 'm'
+     * suffix. Larger files are transferred by the system. It defaults to 256k.</li>
+     * <li>watch: a boolean controlling whether the unpacker should keep running after the unpack and unpack again the
+     * assets affected by the changes made to the asset indexes and to the object files. It can't be used with an archive.</li>
+     * <li>resume: a boolean controlling whether an interrupted unpack to the same output directory should be resumed.
+     * The assets recorded in the journal of the output directory are skipped, except for the last ones which are verified.</li>
+     * <li>base: the version of an older asset index. Only the assets added or changed since that version are unpacked,
+     * and the added, changed and removed assets are listed in a '.changes.json' file next to the output.
+     * It requires a single asset index, and can't be combined with an incremental mode.</li>
+     * <li>dedup: one of 'off', 'copy' or 'link'. Controls how the outputs of the assets sharing the same object are
+     * created: from the object file, copied from the first output, or hard-linked to it. It defaults to 'copy'.</li>
+     * <li>serve: a port on which the assets are served over HTTP on the loopback address, instead of being unpacked.
+     * The requests use the paths the assets would be unpacked to. It can't be combined with the watch mode or a base version.</li>
      *
      * @param args The array of the arguments, as those passed by java in the {@link MinecraftAssetUnpacker#main(String[])} method.
      * @return A parsed config if all the arguments are valid and well-parsed.
@@ -41,9 +227,25 @@ public record AssetUnpackerConfig(Path mcDir, String assetsIndex, Path outputDir
         }
 
         Path mcDir = null;
-        String assetsIndex = null;
+        String assetsIndexValue = null;
         Path outputDir = null;
         boolean replaceExistingOutput = false;
+        int threads = DEFAULT_THREADS;
+        boolean virtualThreads = false;
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        IncrementalMode incremental = IncrementalMode.OFF;
+        OutputStrategy outputStrategy = OutputStrategy.COPY;
+        boolean verify = false;
+        boolean moveAside = false;
+        List<String> includes = List.of();
+        List<String> excludes = List.of();
+        boolean objectManifest = false;
+        int copyThreshold = DEFAULT_COPY_THRESHOLD;
+        boolean watch = false;
+        boolean resume = false;
+        String base = null;
+        DedupMode dedup = DedupMode.COPY;
+        int servePort = 0;
 
         for(int i = 0; i < args.length; i++) {
             String arg = args[i].trim();
@@ -68,26 +270,44 @@ public record AssetUnpackerConfig(Path mcDir, String assetsIndex, Path outputDir
                         mcDir = path;
                     }
                 }
-                case "ai" -> {
-                    if(VERSION_PATTERN.matcher(value).matches()) {
-                        assetsIndex = value;
-                    }
-                }
+                case "ai" -> assetsIndexValue = value;
                 case "od" -> {
                     @SuppressWarnings("DuplicateExpressions")
                     Path path = Path.of(value);
-                    if(Files.isDirectory(path)) {
+                    if(Files.isDirectory(path) || (isArchive(path) && Files.isDirectory(path.toAbsolutePath().getParent()))) {
                         outputDir = path;
                     }
                 }
                 case "reo" -> replaceExistingOutput = Boolean.parseBoolean(value);
+                case "threads" -> threads = parsePositiveInt(argName, value);
+                case "virtual" -> virtualThreads = Boolean.parseBoolean(value);
+                case "maxinflight" -> maxInFlight = parsePositiveInt(argName, value);
+                case "incremental" -> incremental = parseEnum(argName, value, IncrementalMode.class);
+                case "strategy" -> outputStrategy = parseEnum(argName, value, OutputStrategy.class);
+                case "verify" -> verify = Boolean.parseBoolean(value);
+                case "moveaside" -> moveAside = Boolean.parseBoolean(value);
+                case "include" -> includes = List.of(value.split(","));
+                case "exclude" -> excludes = List.of(value.split(","));
+                case "manifest" -> objectManifest = Boolean.parseBoolean(value);
+                case "copythreshold" -> copyThreshold = parseSize(argName, value, MAX_COPY_THRESHOLD);
+                case "watch" -> watch = Boolean.parseBoolean(value);
+                case "resume" -> resume = Boolean.parseBoolean(value);
+                case "dedup" -> dedup = parseEnum(argName, value, DedupMode.class);
+                case "serve" -> {
+                    servePort = parsePositiveInt(argName, value);
+                    if(servePort > 65535) {
+                        throw new ConfigParsingError("Invalid value for 'serve': expected a port up to 65535 but got '" + value + "'.");
+                    }
+                }
+                case "base" -> {
+                    if(!VERSION_PATTERN.matcher(value.trim()).matches()) {
+                        throw new ConfigParsingError("Invalid base version '" + value + "'.");
+                    }
+                    base = value.trim();
+                }
             }
         }
 
-        if(assetsIndex == null) {
-            throw new ConfigParsingError("No asset index was specified.");
-        }
-
         if(mcDir == null) {
             String appData = System.getenv("APPDATA");
             if(appData == null) {
@@ -100,18 +320,287 @@ public record AssetUnpackerConfig(Path mcDir, String assetsIndex, Path outputDir
             mcDir = path;
         }
 
+        List<String> assetsIndexes = assetsIndexValue == null ? List.of() : parseAssetsIndexes(mcDir, assetsIndexValue);
+        if(assetsIndexes.isEmpty()) {
+            throw new ConfigParsingError("No asset index was specified.");
+        }
+
         if(outputDir == null) {
-            outputDir = MinecraftAssetUnpacker.RUNTIME_PATH.resolve("unpacked/".concat(assetsIndex));
-            if(Files.isDirectory(outputDir)) {
-                try(DirectoryStream<Path> files = Files.newDirectoryStream(outputDir)) {
-                    if(files.iterator().hasNext() && !replaceExistingOutput) {
-                        throw new ConfigParsingError("Output directory is not empty.");
-                    }
-                } catch (IOException ignored) {
+            // Nothing is written when serving the assets, the default output doesn't have to be empty
+            boolean replace = replaceExistingOutput || resume || servePort != 0;
+            if(assetsIndexes.size() == 1) {
+                outputDir = MinecraftAssetUnpacker.RUNTIME_PATH.resolve("unpacked/".concat(assetsIndexes.get(0)));
+                checkEmptyOutput(outputDir, replace, incremental);
+            } else {
+                outputDir = MinecraftAssetUnpacker.RUNTIME_PATH.resolve("unpacked");
+                for(String assetsIndex : assetsIndexes) {
+                    checkEmptyOutput(outputDir.resolve(assetsIndex), replace, incremental);
+                }
+            }
+        }
+
+        if(watch && isArchive(outputDir) && !Files.isDirectory(outputDir)) {
+            throw new ConfigParsingError("The watch mode requires an output directory.");
+        }
+        if(base != null) {
+            if(assetsIndexes.size() != 1 || assetsIndexes.contains(base)) {
+                throw new ConfigParsingError("The base version must be compared to a single other asset index.");
+            }
+            if(watch) {
+                throw new ConfigParsingError("The base version can't be combined with the watch mode.");
+            }
+            if(incremental != IncrementalMode.OFF) {
+                throw new ConfigParsingError("The base version can't be combined with an incremental mode.");
+            }
+        }
+        if(servePort != 0 && (watch || base != null)) {
+            throw new ConfigParsingError("The serve mode can't be combined with the watch mode or a base version.");
+        }
+
+        return builder(mcDir, assetsIndexes, outputDir).threads(threads).virtualThreads(virtualThreads).maxInFlight(maxInFlight)
+                .incremental(incremental).outputStrategy(outputStrategy).verify(verify).moveAside(moveAside)
+                .pathFilter(PathFilter.of(includes, excludes)).objectManifest(objectManifest).copyThreshold(copyThreshold)
+                .watch(watch).resume(resume).base(base).dedup(dedup).servePort(servePort).build();
+    }
+
+    /**
+     * Parses the comma separated versions of the 'ai' argument. Plain versions must match {@link #VERSION_PATTERN},
+     * globs and 'all' are matched against the asset index files of the Minecraft directory.
+     *
+     * @param mcDir The Minecraft home directory.
+     * @param value The value of the argument.
+     * @return The asset index versions, without duplicates.
+     * @throws ConfigParsingError If a glob doesn't match any asset index.
+     */
+    private static List<String> parseAssetsIndexes(Path mcDir, String value) throws ConfigParsingError {
+        Set<String> assetsIndexes = new LinkedHashSet<>();
+        for(String version : value.split(",")) {
+            version = version.trim();
+            if(version.equalsIgnoreCase("all")) {
+                version = "*";
+            }
+            if(version.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '{')) {
+                if(VERSION_PATTERN.matcher(version).matches()) {
+                    assetsIndexes.add(version);
+                }
+                continue;
+            }
+            PathMatcher matcher = mcDir.getFileSystem().getPathMatcher("glob:" + version + ".json");
+            List<String> matches = new ArrayList<>();
+            try(DirectoryStream<Path> files = Files.newDirectoryStream(mcDir.resolve("assets/indexes"), path -> matcher.matches(path.getFileName()))) {
+                for(Path file : files) {
+                    String fileName = file.getFileName().toString();
+                    matches.add(fileName.substring(0, fileName.length() - ".json".length()));
+                }
+            } catch (IOException ignored) {
+            }
+            if(matches.isEmpty()) {
+                throw new ConfigParsingError("No asset index matches '" + version + "' in '`mcDir`/assets/indexes'.");
+            }
+            Collections.sort(matches);
+            assetsIndexes.addAll(matches);
+        }
+        return List.copyOf(assetsIndexes);
+    }
+
+    /**
+     * @param path A path.
+     * @return If the path is named like a ZIP archive.
+     */
+    private static boolean isArchive(Path path) {
+        String fileName = path.getFileName() == null ? "" : path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".zip") || fileName.endsWith(".jar");
+    }
+
+    /**
+     * Checks that the default output directory can be used.
+     *
+     * @param outputDir The output directory.
+     * @param replaceExistingOutput If the existing files can be replaced.
+     * @param incremental The incremental mode, which keeps the existing files.
+     * @throws ConfigParsingError If the output directory is not empty and can't be replaced.
+     */
+    private static void checkEmptyOutput(Path outputDir, boolean replaceExistingOutput, IncrementalMode incremental) throws ConfigParsingError {
+        if(Files.isDirectory(outputDir)) {
+            try(DirectoryStream<Path> files = Files.newDirectoryStream(outputDir)) {
+                if(files.iterator().hasNext() && !replaceExistingOutput && incremental == IncrementalMode.OFF) {
+                    throw new ConfigParsingError("Output directory is not empty.");
                 }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Parses the value of an argument that must be a strictly positive integer.
+     *
+     * @param argName The name of the argument, used in the error message.
+     * @param value The value to parse.
+     * @return The parsed integer.
+     * @throws ConfigParsingError If the value is not a strictly positive integer.
+     */
+    private static int parsePositiveInt(String argName, String value) throws ConfigParsingError {
+        try {
+            int result = Integer.parseInt(value);
+            if(result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ConfigParsingError("Invalid value for '" + argName + "': expected a positive integer but got '" + value + "'.");
+    }
+
+    /**
+     * Parses the value of an argument that must be a size in bytes, optionally followed by 'k' (KiB) or 'm' (MiB).
+     *
+     * @param argName The name of the argument, used in the error message.
+     * @param value The value to parse.
+     * @param max The maximum size.
+     * @return The parsed size in bytes.
+     * @throws ConfigParsingError If the value is not a valid size.
+     */
+    private static int parseSize(String argName, String value, int max) throws ConfigParsingError {
+        String lowerCase = value.trim().toLowerCase(Locale.ROOT);
+        int shift = lowerCase.endsWith("k") ? 10 : lowerCase.endsWith("m") ? 20 : 0;
+        try {
+            long result = Long.parseLong(shift == 0 ? lowerCase : lowerCase.substring(0, lowerCase.length() - 1)) << shift;
+            if(result >= 0 && result <= max) {
+                return (int) result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ConfigParsingError("Invalid value for '" + argName + "': expected a size of at most " + (max >> 20) + "m but got '" + value + "'.");
+    }
+
+    /**
+     * Parses the value of an argument that must be the name of an enum constant, ignoring case.
+     *
+     * @param argName The name of the argument, used in the error message.
+     * @param value The value to parse.
+     * @param enumClass The class of the enum.
+     * @return The matching enum constant.
+     * @throws ConfigParsingError If no constant matches the value.
+     */
+    private static <E extends Enum<E>> E parseEnum(String argName, String value, Class<E> enumClass) throws ConfigParsingError {
+        for (E constant : enumClass.getEnumConstants()) {
+            if(constant.name().equalsIgnoreCase(value)) {
+                return constant;
             }
         }
+        throw new ConfigParsingError("Invalid value for '" + argName + "': expected one of " + Arrays.toString(enumClass.getEnumConstants()).toLowerCase(Locale.ROOT) + " but got '" + value + "'.");
+    }
+
+    /**
+     * Builds an {@link AssetUnpackerConfig} one option at a time, starting from the default options.
+     * The options are documented on the components of the record, and are validated by {@link #build()}.
+     */
+    public static final class Builder {
+        private final Path mcDir;
+        private final List<String> assetsIndexes;
+        private final Path outputDir;
+        private int threads = DEFAULT_THREADS;
+        private boolean virtualThreads;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private IncrementalMode incremental = IncrementalMode.OFF;
+        private OutputStrategy outputStrategy = OutputStrategy.COPY;
+        private boolean verify;
+        private boolean moveAside;
+        private PathFilter pathFilter = PathFilter.ALL;
+        private boolean objectManifest;
+        private int copyThreshold = DEFAULT_COPY_THRESHOLD;
+        private boolean watch;
+        private boolean resume;
+        private String base;
+        private DedupMode dedup = DedupMode.COPY;
+        private int servePort;
+
+        private Builder(Path mcDir, List<String> assetsIndexes, Path outputDir) {
+            this.mcDir = mcDir;
+            this.assetsIndexes = assetsIndexes;
+            this.outputDir = outputDir;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder incremental(IncrementalMode incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        public Builder outputStrategy(OutputStrategy outputStrategy) {
+            this.outputStrategy = outputStrategy;
+            return this;
+        }
+
+        public Builder verify(boolean verify) {
+            this.verify = verify;
+            return this;
+        }
 
-        return new AssetUnpackerConfig(mcDir, assetsIndex, outputDir);
+        public Builder moveAside(boolean moveAside) {
+            this.moveAside = moveAside;
+            return this;
+        }
+
+        public Builder pathFilter(PathFilter pathFilter) {
+            this.pathFilter = pathFilter;
+            return this;
+        }
+
+        public Builder objectManifest(boolean objectManifest) {
+            this.objectManifest = objectManifest;
+            return this;
+        }
+
+        public Builder copyThreshold(int copyThreshold) {
+            this.copyThreshold = copyThreshold;
+            return this;
+        }
+
+        public Builder watch(boolean watch) {
+            this.watch = watch;
+            return this;
+        }
+
+        public Builder resume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
+        public Builder base(String base) {
+            this.base = base;
+            return this;
+        }
+
+        public Builder dedup(DedupMode dedup) {
+            this.dedup = dedup;
+            return this;
+        }
+
+        public Builder servePort(int servePort) {
+            this.servePort = servePort;
+            return this;
+        }
+
+        /**
+         * @return The config with the options of this builder.
+         * @throws IllegalArgumentException If the options are invalid or can't be combined.
+         */
+        public AssetUnpackerConfig build() {
+            return new AssetUnpackerConfig(this);
+        }
     }
 }
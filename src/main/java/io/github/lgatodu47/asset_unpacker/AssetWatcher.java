@@ -0,0 +1,271 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an output directory up to date with the Minecraft directory: after a first unpack, the asset index files and
+ * the object files are watched, and only the assets affected by a change are unpacked again.<br>
+ * The indexes stay in memory between the changes. A changed index file is read again and compared to the previous
+ * version of the index with an {@link IndexDiff}: the outputs of the removed assets are deleted, and the new or changed
+ * assets are unpacked.
+ * A new or changed object file is looked up by hash in the indexes, and the assets using it are unpacked.<br>
+ * Each 'objects/xx' directory is registered on its own, as the watch service doesn't watch subdirectories.
+ * The events are collected until none came for {@link #DEBOUNCE_MILLIS} milliseconds, so that a launcher writing many
+ * objects usually triggers a single update. A download may stall for longer than that though, so an object is only
+ * unpacked once its size matches the index: the others are left pending until the next events.
+ */
+final class AssetWatcher {
+    /**
+     * The time without events after which the changes are applied.
+     */
+    static final long DEBOUNCE_MILLIS = 100;
+
+    private final MinecraftAssetUnpacker unpacker;
+    private final AssetUnpackerConfig config;
+    private final Path indexesDir;
+    private final Path objectsDir;
+    private final Map<String, AssetIndex> indexes = new LinkedHashMap<>();
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    /**
+     * The hashes of the objects that were still incomplete during the last update.
+     */
+    private final Set<String> pendingHashes = new HashSet<>();
+
+    AssetWatcher(MinecraftAssetUnpacker unpacker, AssetUnpackerConfig config) {
+        if (config.archiveOutput()) {
+            throw new UnpackException("The watch mode requires an output directory.");
+        }
+        this.unpacker = unpacker;
+        this.config = config;
+        this.indexesDir = config.mcDir().resolve("assets/indexes").toAbsolutePath();
+        this.objectsDir = MinecraftAssetUnpacker.objectsDir(config);
+    }
+
+    /**
+     * Unpacks the assets, then applies the changes until the thread is interrupted.
+     *
+     * @throws IOException If the directories can't be watched.
+     * @throws InterruptedException If the thread was interrupted while waiting for changes.
+     * @throws UnpackException If the first unpack can't be done at all.
+     */
+    void run() throws IOException, InterruptedException {
+        try (WatchService service = objectsDir.getFileSystem().newWatchService()) {
+            // Registering before the first unpack, so that the changes made during it aren't missed
+            register(service, indexesDir);
+            register(service, objectsDir);
+            try (DirectoryStream<Path> shards = Files.newDirectoryStream(objectsDir, Files::isDirectory)) {
+                for (Path shard : shards) {
+                    register(service, shard);
+                }
+            }
+
+            UnpackStats stats = new UnpackStats();
+            indexes.putAll(MinecraftAssetUnpacker.readIndexes(config, stats));
+            unpacker.unpack(config, indexes, MinecraftAssetUnpacker.targetsOf(indexes), false, new ConsoleUnpackListener(), stats);
+            System.out.println("Watching '" + config.mcDir().resolve("assets") + "' for changes...");
+
+            while (true) {
+                Changes changes = new Changes();
+                collect(service, service.take(), changes);
+                WatchKey key;
+                while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(service, key, changes);
+                }
+                try {
+                    apply(changes);
+                } catch (UnpackException e) {
+                    System.err.println(e.getMessage() + (e.getCause() != null ? " (" + e.getCause() + ")" : ""));
+                }
+            }
+        }
+    }
+
+    private void register(WatchService service, Path dir) throws IOException {
+        keys.put(dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+    }
+
+    /**
+     * Adds the events of a key to the pending changes.
+     */
+    private void collect(WatchService service, WatchKey key, Changes changes) throws IOException {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.overflow = true;
+                continue;
+            }
+            String name = event.context().toString();
+            if (dir.equals(indexesDir)) {
+                if (name.endsWith(".json")) {
+                    String assetsIndex = name.substring(0, name.length() - ".json".length());
+                    if (indexes.containsKey(assetsIndex)) {
+                        changes.indexes.add(assetsIndex);
+                    }
+                }
+            } else if (dir.equals(objectsDir)) {
+                Path shard = dir.resolve(name);
+                if (Files.isDirectory(shard)) {
+                    // A new shard directory, whose first objects may have been written before it was registered
+                    register(service, shard);
+                    try (DirectoryStream<Path> objects = Files.newDirectoryStream(shard)) {
+                        for (Path object : objects) {
+                            changes.hashes.add(object.getFileName().toString());
+                        }
+                    }
+                }
+            } else {
+                changes.hashes.add(name);
+            }
+        }
+        if (!key.reset()) {
+            // The directory was deleted, it is registered again if it is created again
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Unpacks the assets affected by the changes.
+     */
+    private void apply(Changes changes) {
+        long start = System.nanoTime();
+        if (changes.overflow) {
+            // Too many events were lost to know what changed, everything is checked against the indexes
+            System.out.println("Too many changes at once, checking the whole output...");
+            indexes.putAll(MinecraftAssetUnpacker.readIndexes(config, new UnpackStats()));
+            AssetUnpackerConfig checkAll = config.withIncremental(IncrementalMode.HASH);
+            unpacker.unpack(checkAll, indexes, MinecraftAssetUnpacker.targetsOf(indexes), false, new ConsoleUnpackListener(), new UnpackStats());
+            return;
+        }
+
+        Set<UnpackTarget> targets = new LinkedHashSet<>();
+        int removed = 0;
+        for (String assetsIndex : changes.indexes) {
+            AssetIndex.Builder builder = new AssetIndex.Builder();
+            try {
+                Path indexesFile = MinecraftAssetUnpacker.indexesFile(config, assetsIndex);
+                if (config.pathFilter().isAll()) {
+                    builder.read(indexesFile);
+                } else {
+                    builder.read(indexesFile, config.pathFilter());
+                }
+            } catch (IOException e) {
+                // Most likely still being written, the next event will bring it back
+                System.err.println("Failed to read indexes file '" + assetsIndex + ".json', keeping its previous version. (" + e + ")");
+                continue;
+            }
+            AssetIndex index = builder.build();
+            removed += compare(assetsIndex, indexes.put(assetsIndex, index), index, targets);
+        }
+        changes.hashes.addAll(pendingHashes);
+        pendingHashes.clear();
+        for (String hash : changes.hashes) {
+            indexes.forEach((assetsIndex, index) -> {
+                for (Asset asset : index.findByHash(hash)) {
+                    targets.add(new UnpackTarget(assetsIndex, asset));
+                }
+            });
+        }
+        Map<String, Boolean> complete = new HashMap<>();
+        targets.removeIf(target -> {
+            Asset asset = target.asset();
+            if (complete.computeIfAbsent(asset.hash(), hash -> isComplete(asset))) {
+                return false;
+            }
+            pendingHashes.add(asset.hash());
+            return true;
+        });
+        if (!pendingHashes.isEmpty()) {
+            System.out.println("Waiting for " + pendingHashes.size() + " incomplete objects.");
+        }
+        if (targets.isEmpty() && removed == 0) {
+            return;
+        }
+
+        UnpackResult result = unpacker.unpack(config, indexes, List.copyOf(targets), true, new UnpackListener() {
+            @Override
+            public void assetFailed(Asset asset, Exception cause) {
+                System.err.println("Failed to unpack asset with path '" + asset.path() + "'! (" + cause + ")");
+            }
+        }, new UnpackStats());
+        System.out.println("Updated " + result.unpacked() + " files (" + result.failed() + " failed) and deleted " + removed + " files in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+    }
+
+    /**
+     * @param asset An asset of the indexes.
+     * @return If the object file of the asset exists and has the size of the asset. An object with another size is most
+     * likely still being written, and would be unpacked truncated.
+     */
+    private boolean isComplete(Asset asset) {
+        try {
+            return Files.size(objectsDir.resolve(asset.objectName())) == asset.size();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compares two versions of an index. The outputs of the removed assets are deleted right away.
+     *
+     * @param assetsIndex The version of the index.
+     * @param previous The previous version of the index.
+     * @param index The new version of the index.
+     * @param targets Receives the new and changed assets.
+     * @return The amount of deleted outputs.
+     */
+    private int compare(String assetsIndex, AssetIndex previous, AssetIndex index, Set<UnpackTarget> targets) {
+        IndexDiff diff = IndexDiff.between(previous, index);
+        for (Asset asset : diff.added()) {
+            targets.add(new UnpackTarget(assetsIndex, asset));
+        }
+        for (Asset asset : diff.changed()) {
+            targets.add(new UnpackTarget(assetsIndex, asset));
+        }
+        Path outputDir = config.outputDir(assetsIndex).toAbsolutePath();
+        int deleted = 0;
+        for (Asset asset : diff.removed()) {
+            if (delete(outputDir, asset.path())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the output of an asset, as well as the directories left empty.
+     *
+     * @return If the output existed.
+     */
+    private static boolean delete(Path outputDir, String path) {
+        Path file = outputDir.resolve(path);
+        try {
+            if (!Files.deleteIfExists(file)) {
+                return false;
+            }
+            for (Path dir = file.getParent(); dir != null && !dir.equals(outputDir); dir = dir.getParent()) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    if (stream.iterator().hasNext()) {
+                        break;
+                    }
+                }
+                Files.delete(dir);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to delete '" + file + "'! (" + e + ")");
+            return false;
+        }
+    }
+
+    /**
+     * The changes collected until the events stop.
+     */
+    private static final class Changes {
+        private final Set<String> indexes = new LinkedHashSet<>();
+        private final Set<String> hashes = new HashSet<>();
+        private boolean overflow;
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * The listener used by the command line: it prints the progress of the unpack to the console.
+ */
+public class ConsoleUnpackListener implements UnpackListener {
+    private AssetUnpackerConfig config;
+
+    @Override
+    public void started(AssetUnpackerConfig config, int assetCount) {
+        this.config = config;
+        if (config.base() != null) {
+            System.out.println("Found " + assetCount + " assets added or changed since " + config.base() + "! The changes are listed in '" + IndexDiff.fileFor(config.outputDir()) + "'.");
+        } else if (config.multipleIndexes()) {
+            System.out.println("Found " + assetCount + " assets to unpack in the " + config.assetsIndexes().size() + " indexes files!");
+        } else {
+            System.out.println("Found " + assetCount + " assets to unpack in the indexes file!");
+        }
+        System.out.println("Unpacking files...");
+    }
+
+    @Override
+    public void assetFailed(Asset asset, Exception cause) {
+        System.err.println("Failed to unpack asset with path '" + asset.path() + "'! (" + cause + ")");
+    }
+
+    @Override
+    public void finished(UnpackResult result) {
+        System.out.printf(Locale.ROOT, "Unpacked %d/%d files (%d failed) in %.3f seconds!%n", result.unpacked(), result.assetCount(), result.failed(),
+                result.phase(UnpackPhase.COPY).toNanos() / 1e9);
+        if (config != null && config.multipleIndexes()) {
+            System.out.println("The indexes share " + result.uniqueObjects() + " different objects, each of them was read once.");
+        }
+        if (config != null && !config.archiveOutput() && config.outputStrategy() != OutputStrategy.COPY) {
+            System.out.println(result.linked() + " files were created as " + config.outputStrategy().name().toLowerCase(Locale.ROOT) + "s, " + result.copied() + " had to be copied.");
+        }
+        if (config != null && !config.archiveOutput() && config.incremental() != IncrementalMode.OFF) {
+            System.out.println(result.upToDate() + " files were already up to date.");
+            System.out.println("Deleted " + result.deletedFiles() + " files that are not part of the index anymore.");
+        } else if (config != null && !config.archiveOutput() && config.resume()) {
+            System.out.println(result.upToDate() + " files were already unpacked by the interrupted unpack.");
+        }
+        if (result.deduplicated() > 0) {
+            String saved = config != null && config.dedup() == DedupMode.LINK ? "read or written again" : "read again from the objects";
+            System.out.printf(Locale.ROOT, "%d assets shared their object with another one: %.1f KiB weren't %s.%n",
+                    result.deduplicated(), result.dedupBytes() / 1024.0, saved);
+        }
+        System.out.printf(Locale.ROOT, "Timings: read index %d ms, parse %d ms, clean %d ms, directories %d ms (%d created), copy %d ms (%.0f files/s, %.1f MiB/s)%n",
+                result.phase(UnpackPhase.INDEX_READ).toMillis(), result.phase(UnpackPhase.PARSE).toMillis(),
+                result.phase(UnpackPhase.CLEAN).toMillis(), result.phase(UnpackPhase.DIRECTORIES).toMillis(),
+                result.directoriesCreated(), result.phase(UnpackPhase.COPY).toMillis(),
+                result.filesPerSecond(), result.bytesPerSecond() / (1024 * 1024));
+        if (result.criticalPath().duration().toNanos() > 0) {
+            System.out.println("Critical path: " + result.criticalPath().duration().toMillis() + " ms (" + result.criticalPath().job()
+                    + "), the last job started " + result.criticalPath().tail().toMillis() + " ms before the end.");
+        }
+        if (!result.copyMetrics().isEmpty()) {
+            StringJoiner buckets = new StringJoiner(", ", "Copies by size: ", "");
+            for (SizeBucket bucket : SizeBucket.values()) {
+                CopyMetrics metrics = result.copyMetrics().get(bucket);
+                if (metrics != null) {
+                    buckets.add(String.format(Locale.ROOT, "%s %d files (%.1f MiB/s per thread)", bucket.label(), metrics.files(), metrics.bytesPerSecond() / (1024 * 1024)));
+                }
+            }
+            System.out.println(buckets);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.time.Duration;
+
+/**
+ * The copies made in a {@linkplain SizeBucket size bucket}.
+ *
+ * @param files The amount of files copied.
+ * @param bytes The amount of bytes copied.
+ * @param duration The time spent copying them, summed over all the threads.
+ */
+public record CopyMetrics(long files, long bytes, Duration duration) {
+    /**
+     * @return The amount of bytes copied per second by a single thread.
+     */
+    public double bytesPerSecond() {
+        long nanos = duration.toNanos();
+        return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+
+/**
+ * Reported as the cause of an asset failure when its object file doesn't match the size or the hash given by the index.
+ *
+ * @see AssetUnpackerConfig#verify()
+ */
+public class CorruptedObjectException extends IOException {
+    public CorruptedObjectException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * Controls how {@link MinecraftAssetUnpacker} creates the outputs of the assets sharing the same object, such as
+ * identical sound variants. The first output of an object is always created from the object file.<br>
+ * This only applies to the assets that are copied, the outputs created as links by the {@link OutputStrategy} already
+ * share their content. Archives always compress a shared object once.
+ */
+public enum DedupMode {
+    /**
+     * Each output is created from the object file, like the first one.
+     */
+    OFF,
+    /**
+     * The other outputs are copied from the first one, which was already verified and is most likely still in the page
+     * cache. This is the default behavior.
+     */
+    COPY,
+    /**
+     * The other outputs are hard links to the first one, so the content is only written once. Falls back to
+     * {@link #COPY} when the output directory doesn't support hard links.<br>
+     * <strong>Note that editing one of the outputs also edits the others!</strong>
+     */
+    LINK
+}
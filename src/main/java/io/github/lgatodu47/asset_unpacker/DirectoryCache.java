@@ -0,0 +1,88 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the directories of the output that are known to exist, so that each of them costs a single system call.<br>
+ * {@link Files#createDirectories} checks every component of the path each time it is called, even though thousands
+ * of assets share the same few hundred parent directories. An existing directory isn't an error for either of them,
+ * only a path component that exists as a file is. This class is safe to use from several threads at once.
+ */
+final class DirectoryCache {
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * @param root A directory that is known to exist, usually the output directory.
+     */
+    DirectoryCache(Path root) {
+        directories.add(root);
+    }
+
+    /**
+     * Makes sure a directory and its parents exist.
+     *
+     * @param dir The directory.
+     * @throws IOException If the directory couldn't be created.
+     */
+    void ensure(Path dir) throws IOException {
+        if (directories.contains(dir)) {
+            return;
+        }
+        Path parent = dir.getParent();
+        if (parent != null) {
+            ensure(parent);
+        }
+        try {
+            Files.createDirectory(dir);
+            created.incrementAndGet();
+        } catch (FileAlreadyExistsException e) {
+            // Either it was already there, or another thread was faster
+            if (!Files.isDirectory(dir)) {
+                throw e;
+            }
+        }
+        directories.add(dir);
+    }
+
+    /**
+     * Creates the parent directories of all the assets in a single pass, before they are unpacked.
+     * A directory that can't be created is skipped, the assets it should contain will fail when they are unpacked.
+     *
+     * @param index The assets, whose paths are sorted.
+     * @param outputDir The output directory.
+     */
+    void createParents(AssetIndex index, Path outputDir) {
+        String previousParent = null;
+        for (int i = 0; i < index.size(); i++) {
+            String path = index.path(i);
+            int separator = path.lastIndexOf('/');
+            if (separator == -1) {
+                continue;
+            }
+            // Paths are sorted, so if the previous path had the same parent we are done with it
+            if (previousParent != null && separator == previousParent.length() && path.startsWith(previousParent)) {
+                continue;
+            }
+            String parent = path.substring(0, separator);
+            previousParent = parent;
+            try {
+                ensure(outputDir.resolve(parent));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * @return The amount of directories this cache created.
+     */
+    int created() {
+        return created.get();
+    }
+}
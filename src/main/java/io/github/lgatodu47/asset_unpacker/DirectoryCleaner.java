@@ -0,0 +1,176 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Deletes directory trees in parallel.<br>
+ * The first levels of the tree are listed with a {@link DirectoryStream} and each subdirectory is deleted by its own
+ * fork/join task, the deeper subtrees are deleted bottom-up with {@link Files#walkFileTree}. The output trees are
+ * quite shallow ({@code minecraft/sounds/mob/...}) so splitting the first levels is enough to keep all the threads busy.
+ */
+final class DirectoryCleaner {
+    /**
+     * The depth up to which subdirectories are split across tasks.
+     */
+    private static final int SPLIT_DEPTH = 3;
+    /**
+     * The prefix of the directories an output directory is moved to before being deleted in the background.
+     */
+    private static final String MOVED_ASIDE_PREFIX = ".old-";
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism The amount of threads deleting the files.
+     */
+    DirectoryCleaner(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Empties a directory without deleting it.<br>
+     * If the given path is a file, it doesn't do anything.
+     *
+     * @param dir The path of the directory to empty.
+     * @throws IOException If an I/O error occurs.
+     */
+    void clean(Path dir) throws IOException {
+        if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            run(new DeleteTask(dir, 0, false));
+        }
+    }
+
+    /**
+     * Deletes a directory and all of its content.
+     *
+     * @param dir The path of the directory to delete.
+     * @throws IOException If an I/O error occurs.
+     */
+    void delete(Path dir) throws IOException {
+        if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            run(new DeleteTask(dir, 0, true));
+        }
+    }
+
+    /**
+     * Renames a directory to a hidden sibling, creates a new empty directory in its place and deletes the old content
+     * in the background. This is a lot faster than emptying the directory before using it again.<br>
+     * Directories that were moved aside by a previous run and never deleted (because it was killed) are deleted as well.
+     *
+     * @param dir The path of the directory to empty.
+     * @throws IOException If the directory couldn't be moved, for example because it is a mount point or the root of
+     * the file system.
+     */
+    void moveAside(Path dir) throws IOException {
+        Path parent = dir.toAbsolutePath().getParent();
+        if (parent == null) {
+            throw new FileSystemException(dir.toString(), null, "The root of the file system can't be moved aside");
+        }
+        String prefix = "." + dir.getFileName() + MOVED_ASIDE_PREFIX;
+        Path movedDir = parent.resolve(prefix + System.currentTimeMillis());
+        Files.move(dir, movedDir, StandardCopyOption.ATOMIC_MOVE);
+        Files.createDirectory(dir);
+
+        List<Path> toDelete = new ArrayList<>();
+        try (Stream<Path> siblings = Files.list(parent)) {
+            siblings.filter(path -> path.getFileName().toString().startsWith(prefix)).forEach(toDelete::add);
+        }
+        Thread thread = new Thread(() -> {
+            for (Path path : toDelete) {
+                try {
+                    delete(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete the old output directory '" + path + "' in the background! (" + e + ")");
+                }
+            }
+        }, "Asset Unpacker Background Cleaner");
+        // Not a daemon: the program shouldn't exit before the old content is deleted
+        thread.start();
+    }
+
+    private void run(DeleteTask task) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Deletes the content of a directory, and the directory itself if asked to.
+     */
+    private static final class DeleteTask extends RecursiveAction {
+        private final Path dir;
+        private final int depth;
+        private final boolean deleteSelf;
+
+        private DeleteTask(Path dir, int depth, boolean deleteSelf) {
+            this.dir = dir;
+            this.depth = depth;
+            this.deleteSelf = deleteSelf;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (depth >= SPLIT_DEPTH) {
+                    walkAndDelete();
+                    return;
+                }
+                List<DeleteTask> subtasks = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path path : stream) {
+                        // Links to directories are deleted as files, their target is left untouched
+                        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                            DeleteTask subtask = new DeleteTask(path, depth + 1, true);
+                            subtask.fork();
+                            subtasks.add(subtask);
+                        } else {
+                            Files.delete(path);
+                        }
+                    }
+                }
+                for (DeleteTask subtask : subtasks) {
+                    subtask.join();
+                }
+                if (deleteSelf) {
+                    Files.delete(dir);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void walkAndDelete() throws IOException {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path directory, IOException exc) throws IOException {
+                    if (exc != null) {
+                        throw exc;
+                    }
+                    if (deleteSelf || !directory.equals(dir)) {
+                        Files.delete(directory);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Unpacks the assets in a directory tree, which is the default output.
+ * With several asset indexes, each one is unpacked in its own subdirectory.<br>
+ * Each output is written under a temporary name and renamed once complete, so that an interrupted unpack never leaves a
+ * partial file under the name of an asset. The renamed outputs are recorded in an {@link UnpackJournal}.
+ */
+final class DirectorySink implements OutputSink {
+    /**
+     * The suffix of the outputs being written.
+     */
+    static final String PART_SUFFIX = ".unpacking";
+
+    private final AssetUnpackerConfig config;
+    private final Map<String, IndexOutput> outputs = new LinkedHashMap<>();
+    private final FileCopier copier;
+    /**
+     * If the existing outputs are replaced, regardless of the incremental mode.
+     */
+    private final boolean replace;
+    /**
+     * The journal of the output directory, opened once the output is prepared.
+     */
+    private UnpackJournal journal;
+    private final LongAdder dedupFiles = new LongAdder();
+    private final LongAdder dedupBytes = new LongAdder();
+
+    DirectorySink(AssetUnpackerConfig config, Map<String, AssetIndex> indexes) {
+        this(config, indexes, false);
+    }
+
+    /**
+     * @param config The config of the unpack.
+     * @param indexes The asset indexes to unpack, by version.
+     * @param replace If the existing outputs should be replaced, for assets known to have changed.
+     */
+    DirectorySink(AssetUnpackerConfig config, Map<String, AssetIndex> indexes, boolean replace) {
+        this.config = config;
+        this.replace = replace;
+        this.copier = new FileCopier(config.copyThreshold());
+        indexes.forEach((assetsIndex, index) -> {
+            Path dir = config.outputDir(assetsIndex).toAbsolutePath();
+            outputs.put(assetsIndex, new IndexOutput(index, dir, new DirectoryCache(dir)));
+        });
+    }
+
+    @Override
+    public void prepare(UnpackStats stats) {
+        long phaseStart = System.nanoTime();
+        UnpackEvents.PhaseEvent event = UnpackEvents.beginPhase(UnpackPhase.CLEAN, config.outputDir().toString());
+        for (IndexOutput output : outputs.values()) {
+            if (Files.exists(output.dir())) {
+                if (config.incremental() == IncrementalMode.OFF && !config.resume()) {
+                    cleanOutputDirectory(output.dir());
+                }
+            } else {
+                try {
+                    Files.createDirectories(output.dir());
+                } catch (IOException e) {
+                    throw new UnpackException("Failed to create the output directory.", e);
+                }
+            }
+        }
+        try {
+            journal = UnpackJournal.open(config.outputDir().toAbsolutePath(), config.resume());
+        } catch (IOException e) {
+            throw new UnpackException("Failed to open the journal of the output directory.", e);
+        }
+        stats.phase(UnpackPhase.CLEAN, System.nanoTime() - phaseStart);
+        UnpackEvents.end(event);
+
+        phaseStart = System.nanoTime();
+        event = UnpackEvents.beginPhase(UnpackPhase.DIRECTORIES, config.outputDir().toString());
+        for (IndexOutput output : outputs.values()) {
+            output.directories().createParents(output.index(), output.dir());
+            stats.directoriesCreated(output.directories().created());
+        }
+        stats.phase(UnpackPhase.DIRECTORIES, System.nanoTime() - phaseStart);
+        UnpackEvents.end(event);
+    }
+
+    /**
+     * The first output is created from the object file, and when it was copied the other outputs are created from it
+     * rather than from the object, which doesn't need to be verified again. See {@link DedupMode}.
+     */
+    @Override
+    public void write(Path objectPath, List<UnpackTarget> targets, UnpackListener listener) {
+        Path firstCopy = null;
+        for (UnpackTarget target : targets) {
+            Asset asset = target.asset();
+            IndexOutput output = outputs.get(target.assetsIndex());
+            Path resultPath = output.dir().resolve(asset.path());
+            UnpackEvents.AssetEvent event = UnpackEvents.beginAsset(target);
+            try {
+                UnpackOutcome outcome = unpackAsset(target.assetsIndex(), asset, objectPath, resultPath, output.directories(), firstCopy);
+                UnpackEvents.end(event, outcome, null);
+                if (firstCopy != null && outcome != UnpackOutcome.UP_TO_DATE) {
+                    dedupFiles.increment();
+                    dedupBytes.add(asset.size());
+                } else if (outcome == UnpackOutcome.COPIED && config.dedup() != DedupMode.OFF) {
+                    firstCopy = resultPath;
+                }
+                listener.assetUnpacked(asset, outcome);
+            } catch (IOException | RuntimeException e) {
+                // The other assets of the object are still unpacked
+                UnpackEvents.end(event, null, e);
+                listener.assetFailed(asset, e);
+            }
+        }
+    }
+
+    @Override
+    public void finish(UnpackStats stats) {
+        stats.copyMetrics(copier.metrics());
+        stats.deduplicated(dedupFiles.intValue(), dedupBytes.sum());
+        if (journal != null) {
+            try {
+                journal.close();
+                journal = null;
+                // The output is complete, there is nothing left to resume
+                if (!stats.hasFailures()) {
+                    Files.deleteIfExists(config.outputDir().toAbsolutePath().resolve(UnpackJournal.FILE_NAME));
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to close the journal of the output directory! (" + e + ")");
+            }
+        }
+        if (config.incremental() == IncrementalMode.OFF) {
+            return;
+        }
+        long phaseStart = System.nanoTime();
+        UnpackEvents.PhaseEvent event = UnpackEvents.beginPhase(UnpackPhase.CLEAN, config.outputDir().toString());
+        for (IndexOutput output : outputs.values()) {
+            try {
+                Set<Path> expectedFiles = new HashSet<>();
+                for (Asset asset : output.index()) {
+                    expectedFiles.add(output.dir().resolve(asset.path()));
+                }
+                stats.deleted(deleteOrphans(output.dir(), expectedFiles));
+            } catch (IOException e) {
+                System.err.println("Failed to delete the files that are not part of the index anymore! (" + e + ")");
+            }
+        }
+        stats.phase(UnpackPhase.CLEAN, System.nanoTime() - phaseStart);
+        UnpackEvents.end(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Unpacks a single asset from its object file to the output directory.
+     *
+     * @param assetsIndex The version of the index of the asset.
+     * @param asset The asset to unpack.
+     * @param objectPath The object file of the asset.
+     * @param resultPath The output file of the asset.
+     * @param directories The directories of the output directory known to exist.
+     * @param firstCopy An output of the same object copied earlier, to create this one from, or {@code null}.
+     * @return How the asset was unpacked.
+     * @throws IOException If the asset couldn't be unpacked.
+     */
+    private UnpackOutcome unpackAsset(String assetsIndex, Asset asset, Path objectPath, Path resultPath, DirectoryCache directories, Path firstCopy) throws IOException {
+        if (config.resume() && journal != null) {
+            switch (journal.status(assetsIndex, asset)) {
+                case COMPLETED -> {
+                    return UnpackOutcome.UP_TO_DATE;
+                }
+                case RECENT -> {
+                    if (isUpToDate(resultPath, asset, IncrementalMode.HASH)) {
+                        return UnpackOutcome.UP_TO_DATE;
+                    }
+                }
+            }
+        }
+        if (!replace && config.incremental() != IncrementalMode.OFF && isUpToDate(resultPath, asset, config.incremental())) {
+            record(assetsIndex, asset);
+            return UnpackOutcome.UP_TO_DATE;
+        }
+        // Neither copying nor linking creates the parent directories for us, they were usually created beforehand though
+        directories.ensure(resultPath.getParent());
+        // The output is created under a temporary name, which is deleted if it can't be completed for any reason
+        Path partPath = resultPath.resolveSibling(resultPath.getFileName() + PART_SUFFIX);
+        boolean linked;
+        try {
+            try {
+                linked = createOutput(asset, objectPath, partPath, firstCopy);
+            } catch (FileAlreadyExistsException e) {
+                // Left over by an interrupted unpack
+                Files.delete(partPath);
+                linked = createOutput(asset, objectPath, partPath, firstCopy);
+            }
+            // Renaming replaces an existing output rather than writing through it, which may be a link to an object file
+            Files.move(partPath, resultPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable e) {
+            try {
+                Files.deleteIfExists(partPath);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        record(assetsIndex, asset);
+        return linked ? UnpackOutcome.LINKED : UnpackOutcome.COPIED;
+    }
+
+    /**
+     * Creates the output of an asset under a temporary name.
+     *
+     * @param asset The asset to unpack.
+     * @param objectPath The object file of the asset.
+     * @param partPath The temporary output file.
+     * @param firstCopy An output of the same object copied earlier, to create this one from, or {@code null}.
+     * @return {@code true} if the output is a link or a clone of the object file or of the first copy.
+     * @throws IOException If the output couldn't be created.
+     */
+    private boolean createOutput(Asset asset, Path objectPath, Path partPath, Path firstCopy) throws IOException {
+        if (firstCopy != null) {
+            if (config.dedup() == DedupMode.LINK && link(firstCopy, partPath)) {
+                return true;
+            }
+            // Already verified, and most likely still in the page cache
+            copier.copy(firstCopy, partPath, asset.size(), null);
+            return false;
+        }
+        MessageDigest digest = config.verify() ? HashUtils.newSha1() : null;
+        boolean linked = config.outputStrategy().apply(copier, objectPath, partPath, asset.size(), digest);
+        if (digest != null) {
+            HashUtils.check(asset, digest);
+        }
+        return linked;
+    }
+
+    /**
+     * @return If the link was created, {@code false} if the file system doesn't support hard links.
+     */
+    private static boolean link(Path existing, Path link) throws IOException {
+        try {
+            Files.createLink(link, existing);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private void record(String assetsIndex, Asset asset) throws IOException {
+        if (journal != null) {
+            journal.completed(assetsIndex, asset);
+        }
+    }
+
+    /**
+     * Checks if an existing output file already matches its asset.
+     *
+     * @param resultPath The path of the output file.
+     * @param asset The asset the output file should match.
+     * @param incremental How the output file is compared to the asset.
+     * @return {@code true} if the output file exists and matches the asset.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static boolean isUpToDate(Path resultPath, Asset asset, IncrementalMode incremental) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(resultPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        // Comparing sizes first is cheap and already catches most changes
+        if (!attributes.isRegularFile() || attributes.size() != asset.size()) {
+            return false;
+        }
+        return incremental != IncrementalMode.HASH || HashUtils.sha1(resultPath).equals(asset.hash());
+    }
+
+    /**
+     * Deletes the files of the output directory that are not expected to be there, as well as the directories left empty.
+     *
+     * @param outputDir The output directory.
+     * @param expectedFiles The paths of the files that should be kept.
+     * @return The amount of deleted files.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static int deleteOrphans(Path outputDir, Set<Path> expectedFiles) throws IOException {
+        int[] deleted = {0};
+        Files.walkFileTree(outputDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!expectedFiles.contains(file) && !(file.getParent().equals(outputDir) && file.getFileName().toString().equals(UnpackJournal.FILE_NAME))) {
+                    Files.delete(file);
+                    deleted[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                if (!dir.equals(outputDir)) {
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                        if (!stream.iterator().hasNext()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return deleted[0];
+    }
+
+    /**
+     * Empties an output directory, either in place or by moving its content aside to delete it in the background.
+     *
+     * @param outputDir The output directory.
+     * @throws UnpackException If the directory couldn't be emptied.
+     */
+    private void cleanOutputDirectory(Path outputDir) {
+        DirectoryCleaner cleaner = new DirectoryCleaner(config.threads());
+        if (config.moveAside()) {
+            try {
+                cleaner.moveAside(outputDir);
+                return;
+            } catch (IOException e) {
+                System.err.println("Failed to move the output directory aside, cleaning it in place instead. (" + e + ")");
+            }
+        }
+        try {
+            cleaner.clean(outputDir);
+        } catch (IOException e) {
+            throw new UnpackException("Failed to clean output directory; consider doing it manually or specifying another one.", e);
+        }
+    }
+
+    /**
+     * An asset index and the directory it is unpacked to.
+     */
+    private record IndexOutput(AssetIndex index, Path dir, DirectoryCache directories) {
+    }
+}
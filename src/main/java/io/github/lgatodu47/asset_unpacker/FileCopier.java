@@ -0,0 +1,166 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies files, choosing how from their size.<br>
+ * Files up to the threshold are copied through a reused direct buffer of {@link #BUFFER_SIZE} bytes, which is the
+ * cheapest for the many tiny assets: most of them fit in the buffer, so they are read and written with a single call. Larger files are copied with {@link FileChannel#transferTo}, which the system can
+ * do without copying the bytes to user space. When the content must be hashed, large files are memory-mapped instead,
+ * so that they are still read only once.<br>
+ * The buffers are pooled rather than kept per thread, as virtual threads only copy a single file each. The buffer size
+ * doesn't depend on the threshold, and at most {@link #MAX_POOLED_BUFFERS} buffers are kept, the others are left to
+ * the garbage collector once used. So a high threshold or many copies at once don't pin a lot of direct memory.
+ * This class is safe to use from several threads at once.
+ */
+final class FileCopier {
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_POOLED_BUFFERS = 32;
+
+    private final int threshold;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    /**
+     * The amount of buffers in {@link #buffers}, as the size of the queue isn't a constant time operation.
+     */
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private final Map<SizeBucket, Counters> counters = new EnumMap<>(SizeBucket.class);
+
+    /**
+     * @param threshold The size in bytes up to which files are copied through a buffer.
+     */
+    FileCopier(int threshold) {
+        this.threshold = threshold;
+        for (SizeBucket bucket : SizeBucket.values()) {
+            counters.put(bucket, new Counters());
+        }
+    }
+
+    /**
+     * Copies a file. The target file must not exist yet.
+     *
+     * @param source The file to copy.
+     * @param target The copy.
+     * @param expectedSize The size of the file if it is known, to choose how to copy it without asking the system, or -1.
+     * @param digest If not {@code null}, the digest is updated with the content of the file.
+     * @return The amount of bytes copied.
+     * @throws IOException If an I/O error occurs.
+     */
+    long copy(Path source, Path target, long expectedSize, MessageDigest digest) throws IOException {
+        long start = System.nanoTime();
+        long copied;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = expectedSize < 0 ? in.size() : expectedSize;
+            if (size <= threshold) {
+                copied = copyBuffered(in, out, digest);
+            } else if (digest == null) {
+                copied = transfer(in, out);
+            } else {
+                copied = copyMapped(in, out, digest);
+            }
+        }
+        Counters bucket = counters.get(SizeBucket.of(copied));
+        bucket.files.increment();
+        bucket.bytes.add(copied);
+        bucket.nanos.add(System.nanoTime() - start);
+        return copied;
+    }
+
+    /**
+     * @return The copies made so far, by size bucket. Buckets without any copy are left out.
+     */
+    Map<SizeBucket, CopyMetrics> metrics() {
+        Map<SizeBucket, CopyMetrics> metrics = new EnumMap<>(SizeBucket.class);
+        counters.forEach((bucket, counter) -> {
+            long files = counter.files.sum();
+            if (files > 0) {
+                metrics.put(bucket, new CopyMetrics(files, counter.bytes.sum(), Duration.ofNanos(counter.nanos.sum())));
+            }
+        });
+        return metrics;
+    }
+
+    private long copyBuffered(FileChannel in, FileChannel out, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+        try {
+            long copied = 0;
+            boolean end = false;
+            // A single iteration for the files smaller than the buffer
+            while (!end) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer) == -1) {
+                        end = true;
+                        break;
+                    }
+                }
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                copied += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            return copied;
+        } finally {
+            if (pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                buffers.offer(buffer);
+            } else {
+                pooledBuffers.decrementAndGet();
+            }
+        }
+    }
+
+    private static long transfer(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long count = in.transferTo(position, size - position, out);
+            if (count <= 0) {
+                break;
+            }
+            position += count;
+        }
+        return position;
+    }
+
+    private static long copyMapped(FileChannel in, FileChannel out, MessageDigest digest) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Integer.MAX_VALUE));
+            digest.update(mapped.duplicate());
+            while (mapped.hasRemaining()) {
+                out.write(mapped);
+            }
+            position += mapped.capacity();
+        }
+        return position;
+    }
+
+    private static final class Counters {
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+}
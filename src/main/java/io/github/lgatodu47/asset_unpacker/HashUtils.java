@@ -0,0 +1,118 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class for hash things.
+ */
+class HashUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * @return A new SHA-1 digest, the algorithm used by Minecraft to name its object files.
+     */
+    static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the SHA-1 hash of a file.
+     *
+     * @param file The file to hash.
+     * @return The hash as a lowercase hexadecimal string.
+     * @throws IOException If an I/O error occurs.
+     */
+    static String sha1(Path file) throws IOException {
+        MessageDigest digest = newSha1();
+        update(digest, file);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Updates a digest with the content of a file.
+     *
+     * @param digest The digest to update.
+     * @param file The file to read.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void update(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Checks that the content hashed by a digest is the object of an asset.
+     *
+     * @param asset The asset.
+     * @param digest A SHA-1 digest updated with the content of the object.
+     * @throws CorruptedObjectException If the hash of the content doesn't match the hash of the asset.
+     */
+    static void check(Asset asset, MessageDigest digest) throws CorruptedObjectException {
+        String actualHash = toHex(digest.digest());
+        if (!actualHash.equals(asset.hash())) {
+            throw new CorruptedObjectException("Object '" + asset.hash() + "' has a hash of '" + actualHash + "'.");
+        }
+    }
+
+    /**
+     * @param bytes The bytes to convert.
+     * @return The given bytes as a lowercase hexadecimal string.
+     */
+    static String toHex(byte[] bytes) {
+        return toHex(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes The array containing the bytes to convert.
+     * @param offset The index of the first byte to convert.
+     * @param length The amount of bytes to convert.
+     * @return The given bytes as a lowercase hexadecimal string.
+     */
+    static String toHex(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[offset + i];
+            chars[i * 2] = HEX_DIGITS[(b >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[b & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Converts a hexadecimal SHA-1 hash to its 20 bytes.
+     *
+     * @param hash The hash as a hexadecimal string.
+     * @param dest The array in which the bytes are written.
+     * @param offset The index at which the bytes are written.
+     * @return {@code false} if the given string is not a valid SHA-1 hash, in which case the content of the array is undefined.
+     */
+    static boolean fromHex(String hash, byte[] dest, int offset) {
+        if (hash.length() != AssetIndex.HASH_LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < AssetIndex.HASH_LENGTH; i++) {
+            int high = Character.digit(hash.charAt(i * 2), 16);
+            int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+            if (high == -1 || low == -1) {
+                return false;
+            }
+            dest[offset + i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * Controls how {@link MinecraftAssetUnpacker} deals with an existing output directory.
+ */
+public enum IncrementalMode {
+    /**
+     * The output directory is emptied and every asset is copied again.
+     */
+    OFF,
+    /**
+     * Existing outputs having the same size as the asset are kept, only new or changed assets are copied
+     * and the files that are not part of the index anymore are deleted.
+     */
+    SIZE,
+    /**
+     * Same as {@link #SIZE}, but the content of the existing outputs of the right size is also hashed
+     * and compared to the hash of the asset.
+     */
+    HASH
+}
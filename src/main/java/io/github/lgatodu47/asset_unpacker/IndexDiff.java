@@ -0,0 +1,126 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The assets added, changed and removed between two versions of an asset index.<br>
+ * Both indexes are sorted by path, so they are compared in a single pass, like a merge. The assets present in both
+ * versions are compared by their packed hash and size, and only the differences are turned into {@link Asset} instances,
+ * so the diff costs little more than the comparison itself.
+ *
+ * @param added The assets of the new version that aren't in the base version, in path order.
+ * @param changed The assets of the new version whose content changed since the base version, in path order.
+ * @param removed The assets of the base version that aren't in the new version anymore, in path order.
+ */
+public record IndexDiff(List<Asset> added, List<Asset> changed, List<Asset> removed) {
+    public IndexDiff {
+        added = Collections.unmodifiableList(added);
+        changed = Collections.unmodifiableList(changed);
+        removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @param output The output directory or archive.
+     * @return The change manifest written next to this output.
+     */
+    static Path fileFor(Path output) {
+        Path absolute = output.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + ".changes.json");
+    }
+
+    /**
+     * Compares two versions of an asset index.
+     *
+     * @param base The base version of the index.
+     * @param index The new version of the index.
+     * @return The differences between the versions.
+     */
+    public static IndexDiff between(AssetIndex base, AssetIndex index) {
+        List<Asset> added = new ArrayList<>();
+        List<Asset> changed = new ArrayList<>();
+        List<Asset> removed = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < base.size() || j < index.size()) {
+            int comparison = i == base.size() ? 1 : j == index.size() ? -1 : base.path(i).compareTo(index.path(j));
+            if (comparison < 0) {
+                removed.add(base.get(i++));
+            } else if (comparison > 0) {
+                added.add(index.get(j++));
+            } else {
+                if (!base.sameContent(i, index, j)) {
+                    changed.add(index.get(j));
+                }
+                i++;
+                j++;
+            }
+        }
+        return new IndexDiff(added, changed, removed);
+    }
+
+    /**
+     * @return If both versions have the same assets.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * @return The assets to unpack to go from the base version to the new version, which are the added and changed ones.
+     */
+    public AssetIndex toUnpack() {
+        AssetIndex.Builder builder = new AssetIndex.Builder();
+        added.forEach(builder);
+        changed.forEach(builder);
+        return builder.build();
+    }
+
+    /**
+     * Writes the differences to a JSON file, with the previous hash and size of the changed assets.
+     *
+     * @param file The file to write.
+     * @param base The base version of the index.
+     * @param baseVersion The name of the base version.
+     * @param version The name of the new version.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(Path file, AssetIndex base, String baseVersion, String version) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("base").value(baseVersion);
+            writer.name("version").value(version);
+            writeAssets(writer, "added", added, null);
+            writeAssets(writer, "changed", changed, base);
+            writeAssets(writer, "removed", removed, null);
+            writer.endObject();
+        }
+    }
+
+    private static void writeAssets(JsonWriter writer, String name, List<Asset> assets, AssetIndex base) throws IOException {
+        writer.name(name).beginArray();
+        for (Asset asset : assets) {
+            writer.beginObject();
+            writer.name("path").value(asset.path());
+            writer.name("hash").value(asset.hash());
+            writer.name("size").value(asset.size());
+            Asset previous = base == null ? null : base.findByPath(asset.path());
+            if (previous != null) {
+                writer.name("previousHash").value(previous.hash());
+                writer.name("previousSize").value(previous.size());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+}
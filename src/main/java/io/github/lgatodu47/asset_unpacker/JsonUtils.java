@@ -1,23 +1,29 @@
 package io.github.lgatodu47.asset_unpacker;
 
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Utility class for Json things.
  */
 class JsonUtils {
     /**
-     * Reads the content of an asset index file and associates the paths of each asset with its hash.
+     * Reads the content of an asset index file and passes each asset it describes to the given consumer.
      *
      * @param content The content of the indexes file.
-     * @param pathToHash The map in which the assets info will be stored.
+     * @param consumer The consumer receiving the assets read.
+     * @deprecated Needs the whole file in memory and ignores escape sequences, use {@link AssetIndexReader} instead.
+     * It is only kept as a baseline for the benchmarks.
      */
-    static void readIndexesJson(String content, Map<String, String> pathToHash) {
+    @Deprecated
+    static void readIndexesJson(String content, Consumer<Asset> consumer) {
         int level = 0;
         boolean readingStr = false;
         StringBuilder sb = new StringBuilder();
         String assetPath = null;
+        String assetHash = null;
+        long assetSize = 0;
         boolean hashNext = false;
+        boolean sizeNext = false;
 
         for(int i = 0; i < content.length(); i++) {
             char c = content.charAt(i);
@@ -34,14 +40,13 @@ class JsonUtils {
                         } else if(str.equals("hash")) {
                             // The next string we will read will probably be a hash
                             hashNext = true;
+                        } else if(str.equals("size")) {
+                            // The next value we will read is the size, which is a number and not a string
+                            sizeNext = true;
                         } else if(hashNext) {
                             // The string we read is a hash
                             hashNext = false;
-                            if(assetPath != null) {
-                                // We bind the hash we read to the path we also read earlier.
-                                pathToHash.put(assetPath, str);
-                                assetPath = null;
-                            }
+                            assetHash = str;
                         }
                         // Reset the builder
                         sb = new StringBuilder();
@@ -53,6 +58,18 @@ class JsonUtils {
                     continue;
                 }
 
+                if(sizeNext && c >= '0' && c <= '9') {
+                    // We read the whole number at once
+                    assetSize = 0;
+                    while(i < content.length() && (c = content.charAt(i)) >= '0' && c <= '9') {
+                        assetSize = assetSize * 10 + (c - '0');
+                        i++;
+                    }
+                    sizeNext = false;
+                    i--;
+                    continue;
+                }
+
                 // We start reading a string
                 if(c == '"') {
                     readingStr = true;
@@ -63,6 +80,14 @@ class JsonUtils {
                 level++;
             }
             if(c == '}') {
+                // The object describing an asset is over
+                if(level == 3 && assetPath != null && assetHash != null) {
+                    // We bind the hash and size we read to the path we also read earlier.
+                    consumer.accept(new Asset(assetPath, assetHash, assetSize));
+                    assetPath = null;
+                    assetHash = null;
+                    assetSize = 0;
+                }
                 level--;
             }
         }
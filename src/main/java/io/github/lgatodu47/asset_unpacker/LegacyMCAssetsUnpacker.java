@@ -8,9 +8,10 @@ import com.google.gson.stream.JsonWriter;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Legacy version of Minecraft Asset Unpacker I made a long time ago. Use at your own risk.<br>
@@ -19,11 +20,20 @@ import java.util.Map;
 @Deprecated
 public class LegacyMCAssetsUnpacker {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final FileCopier COPIER = new FileCopier(AssetUnpackerConfig.DEFAULT_COPY_THRESHOLD);
+    /**
+     * The SHA-1 hashes naming the object files.
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-fA-F]{40}");
 
     private static String mcDirPath;
     private static String outputDirectoryPath;
     private static String indexesVersion;
     private static boolean replaceExistingResult;
+    /**
+     * If all the object files should be listed and compared to the index, which is optional in the config.
+     */
+    private static boolean objectsInventory;
 
     public static void main(String[] args) {
         if (isValidFile(getProjectDirectory().concat("config.json"))) {
@@ -70,8 +80,8 @@ public class LegacyMCAssetsUnpacker {
             return;
         }
 
-        Map<String, File> objectsMap = new HashMap<>();
-        scanObjectsFiles(new File(objectsPath), objectsMap);
+        // The objects are resolved from their hash, listing the whole objects directory is only done when asked for
+        Map<String, File> objectsMap = objectsInventory ? scanObjectsFiles(new File(objectsPath)) : null;
 
         File resultDir = new File(outputDirectoryPath.concat("/").concat(indexesVersion));
 
@@ -95,13 +105,26 @@ public class LegacyMCAssetsUnpacker {
             System.out.println("Got " + readFileCount + " files to unpack...");
 
             int unpackedFilesCount = 0;
+            int missingFilesCount = 0;
+            // The first output of each object, the other assets using the object are copied from it
+            Map<String, File> firstOutputs = new HashMap<>();
+            int dedupFilesCount = 0;
+            long dedupBytes = 0;
 
             for (Map.Entry<String, String> entry : fileNameToHash.entrySet()) {
                 String filePath = entry.getKey();
                 String hash = entry.getValue();
-                File target = objectsMap.get(hash);
+                if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+                    System.out.println("Malformed hash '" + hash + "' of file '" + filePath + "'!");
+                    missingFilesCount++;
+                    continue;
+                }
+                File target = objectsMap != null ? objectsMap.get(hash) : new File(objectsPath, hash.substring(0, 2).concat("/").concat(hash));
 
-                if (target.exists()) {
+                if (target == null || !target.isFile()) {
+                    System.out.println("Missing object '" + hash + "' of file '" + filePath + "'!");
+                    missingFilesCount++;
+                } else {
                     try {
                         File resultFile = new File(resultDir.getPath().concat("/").concat(filePath));
 
@@ -109,12 +132,16 @@ public class LegacyMCAssetsUnpacker {
                             resultFile.getParentFile().mkdirs();
                         }
 
-                        if (resultFile.createNewFile()) {
-                            FileOutputStream outputStream = new FileOutputStream(resultFile);
-                            Files.copy(target.toPath(), outputStream);
-                            outputStream.close();
-                            unpackedFilesCount++;
+                        File firstOutput = firstOutputs.get(hash);
+                        if (firstOutput != null) {
+                            dedupBytes += COPIER.copy(firstOutput.toPath(), resultFile.toPath(), -1, null);
+                            dedupFilesCount++;
+                        } else {
+                            COPIER.copy(target.toPath(), resultFile.toPath(), -1, null);
+                            firstOutputs.put(hash, resultFile);
                         }
+                        unpackedFilesCount++;
+                    } catch (FileAlreadyExistsException ignored) {
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
@@ -122,6 +149,17 @@ public class LegacyMCAssetsUnpacker {
             }
 
             System.out.println("Unpacked " + unpackedFilesCount + "/" + readFileCount + " files.");
+            if (missingFilesCount > 0) {
+                System.out.println(missingFilesCount + " files couldn't be unpacked because their object is missing or their hash is malformed, check that your assets are up to date!");
+            }
+            if (objectsMap != null) {
+                Set<String> usedObjects = new HashSet<>(fileNameToHash.values());
+                usedObjects.retainAll(objectsMap.keySet());
+                System.out.println("Found " + objectsMap.size() + " objects, " + usedObjects.size() + " of them are used by the indexes file.");
+            }
+            if (dedupFilesCount > 0) {
+                System.out.println(dedupFilesCount + " files were copied from another file with the same content, " + dedupBytes + " bytes weren't read again from the objects.");
+            }
         } else {
             if (replaceExistingResult)
                 System.out.println("Failed to create output directory!");
@@ -130,23 +168,24 @@ public class LegacyMCAssetsUnpacker {
         }
     }
 
-    private static void scanObjectsFiles(File objectsDir, Map<String, File> objectsMap) {
-        File[] directories = objectsDir.listFiles();
+    /**
+     * Lists all the object files, the 256 'objects/xx' directories being listed in parallel.
+     */
+    private static Map<String, File> scanObjectsFiles(File objectsDir) {
+        Map<String, File> objectsMap = new ConcurrentHashMap<>();
+        File[] directories = objectsDir.listFiles(File::isDirectory);
 
         if (directories != null) {
-            for (File dir : directories) {
-                if (dir.isDirectory()) {
-                    File[] files = dir.listFiles();
-                    if (files != null) {
-                        for (File file : files) {
-                            if (file.isFile()) {
-                                objectsMap.put(file.getName(), file);
-                            }
-                        }
+            Arrays.stream(directories).parallel().forEach(dir -> {
+                File[] files = dir.listFiles(File::isFile);
+                if (files != null) {
+                    for (File file : files) {
+                        objectsMap.put(file.getName(), file);
                     }
                 }
-            }
+            });
         }
+        return objectsMap;
     }
 
     private static int readIndexes(JsonReader reader, Map<String, String> fileNameToHash) {
@@ -208,12 +247,22 @@ public class LegacyMCAssetsUnpacker {
         try {
             JsonReader reader = GSON.newJsonReader(new FileReader(getProjectDirectory().concat("config.json")));
             reader.beginObject();
-            reader.nextName(); mcDirPath = reader.nextString();
-            reader.nextName(); outputDirectoryPath = reader.nextString();
-            reader.nextName(); indexesVersion = reader.nextString();
-            reader.nextName(); replaceExistingResult = reader.nextBoolean();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "mcDirPath" -> mcDirPath = reader.nextString();
+                    case "outputDirectoryPath" -> outputDirectoryPath = reader.nextString();
+                    case "indexesVersion" -> indexesVersion = reader.nextString();
+                    case "replaceExistingResult" -> replaceExistingResult = reader.nextBoolean();
+                    case "objectsInventory" -> objectsInventory = reader.nextBoolean();
+                    default -> reader.skipValue();
+                }
+            }
             reader.endObject();
             reader.close();
+            if (mcDirPath == null || outputDirectoryPath == null || indexesVersion == null) {
+                System.out.println("The config file must specify 'mcDirPath', 'outputDirectoryPath' and 'indexesVersion'!");
+                return false;
+            }
             return true;
         } catch (IOException e) {
             System.out.println("Failed to read the config file!");
@@ -230,6 +279,7 @@ public class LegacyMCAssetsUnpacker {
             writer.name("outputDirectoryPath"); writer.value(getProjectDirectory().concat("unpacked"));
             writer.name("indexesVersion"); writer.value("1.16");
             writer.name("replaceExistingResult"); writer.value(false);
+            writer.name("objectsInventory"); writer.value(false);
             writer.endObject();
             writer.close();
             System.out.println("Successfully created a default config file.");
@@ -1,13 +1,9 @@
 package io.github.lgatodu47.asset_unpacker;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Stream;
+import java.net.InetSocketAddress;
+import java.nio.file.*;
+import java.util.*;
 
 /**
  * Main class of Minecraft Asset Unpacker. As it name implies, it uses the asset index files to decode
@@ -22,94 +18,319 @@ public class MinecraftAssetUnpacker {
      */
     static final Path RUNTIME_PATH = obtainRuntimePath();
 
-    public void start(AssetUnpackerConfig config) {
-        Path indexesFile = config.mcDir().resolve("assets/indexes/".concat(config.assetsIndex()).concat(".json")).toAbsolutePath();
-        if (!Files.isRegularFile(indexesFile)) {
-            System.err.println("No matching index file was found for " + config.assetsIndex() + " in '`mcDir`/assets/indexes'!");
-            return;
-        }
-        Path objectsDir = config.mcDir().resolve("assets/objects").toAbsolutePath();
-        if (!Files.isDirectory(objectsDir)) {
-            System.err.println("No 'objects' directory was found! Searched in the following location: '`mcDir`/assets'!");
-            return;
-        }
+    /**
+     * Unpacks the assets, printing the progress to the console.
+     *
+     * @param config The config of the unpack.
+     * @return The result of the unpack.
+     * @throws UnpackException If the unpack can't be done at all.
+     */
+    public UnpackResult start(AssetUnpackerConfig config) {
+        return start(config, new ConsoleUnpackListener());
+    }
 
-        Path outputDir = config.outputDir().toAbsolutePath();
-        if (Files.exists(outputDir)) {
+    /**
+     * Unpacks the assets.
+     *
+     * @param config The config of the unpack.
+     * @param listener The listener receiving the progress of the unpack.
+     * @return The result of the unpack.
+     * @throws UnpackException If the unpack can't be done at all.
+     */
+    public UnpackResult start(AssetUnpackerConfig config, UnpackListener listener) {
+        UnpackStats stats = new UnpackStats();
+        // The indexes are read before touching the output directory, so that an invalid index doesn't wipe it
+        Map<String, AssetIndex> indexes = readIndexes(config, stats);
+        if (config.base() != null) {
+            // Only the differences are unpacked: the output, its directories and the incremental mode only ever see them
+            AssetIndex base = indexes.remove(config.base());
+            String version = config.assetsIndexes().get(0);
+            IndexDiff diff = IndexDiff.between(base, indexes.get(version));
             try {
-                cleanDirectory(outputDir);
+                diff.write(IndexDiff.fileFor(config.outputDir()), base, config.base(), version);
             } catch (IOException e) {
-                throw new RuntimeException("Failed to clean output directory; consider doing it manually or specifying another one.", e);
+                throw new UnpackException("Failed to write the change manifest.", e);
             }
-        } else {
-            try {
-                Files.createDirectories(outputDir);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to create the output directory.", e);
+            indexes.put(version, diff.toUnpack());
+        }
+        return unpack(config, indexes, targetsOf(indexes), false, listener, stats);
+    }
+
+    /**
+     * Reads the asset index files of a config, concurrently if there are several of them.
+     *
+     * @param config The config of the unpacker.
+     * @param stats The stats receiving the time spent reading and parsing the files.
+     * @return The asset indexes, by version, in the order of the config, followed by the base version if there is one.
+     * @throws UnpackException If the files or the 'objects' directory are missing, or if one of the files couldn't be read.
+     */
+    static Map<String, AssetIndex> readIndexes(AssetUnpackerConfig config, UnpackStats stats) {
+        List<String> versions = new ArrayList<>(config.assetsIndexes());
+        if (config.base() != null) {
+            versions.add(config.base());
+        }
+        List<Path> indexesFiles = new ArrayList<>(versions.size());
+        for (String assetsIndex : versions) {
+            Path indexesFile = indexesFile(config, assetsIndex);
+            if (!Files.isRegularFile(indexesFile)) {
+                throw new UnpackException("No matching index file was found for " + assetsIndex + " in '`mcDir`/assets/indexes'!");
+            }
+            indexesFiles.add(indexesFile);
+        }
+        if (!Files.isDirectory(objectsDir(config))) {
+            throw new UnpackException("No 'objects' directory was found! Searched in the following location: '`mcDir`/assets'!");
+        }
+
+        AssetIndex[] indexArray = readIndexes(indexesFiles, config, stats);
+        Map<String, AssetIndex> indexes = new LinkedHashMap<>();
+        for (int i = 0; i < indexArray.length; i++) {
+            indexes.put(versions.get(i), indexArray[i]);
+        }
+        return indexes;
+    }
+
+    /**
+     * @param indexes The asset indexes, by version.
+     * @return All the assets of the indexes.
+     */
+    static List<UnpackTarget> targetsOf(Map<String, AssetIndex> indexes) {
+        List<UnpackTarget> targets = new ArrayList<>();
+        for (Map.Entry<String, AssetIndex> entry : indexes.entrySet()) {
+            for (Asset asset : entry.getValue()) {
+                targets.add(new UnpackTarget(entry.getKey(), asset));
             }
         }
+        return targets;
+    }
 
-        Map<String, String> indexes = new HashMap<>();
-        String indexesFileContent;
-        try {
-            indexesFileContent = Files.readString(indexesFile);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read indexes file '" + indexesFile.getFileName().toString() + "'!", e);
+    /**
+     * Unpacks some of the assets of the indexes.
+     *
+     * @param config The config of the unpack.
+     * @param indexes The asset indexes, by version.
+     * @param targets The assets to unpack.
+     * @param update If the assets are unpacked to an output that is already complete, replacing their outputs. Otherwise,
+     *               the output is prepared first, and the files that are not part of the indexes anymore are deleted in
+     *               incremental mode.
+     * @param listener The listener receiving the progress of the unpack.
+     * @param stats The stats of the unpack, which may already contain the time spent reading the indexes.
+     * @return The result of the unpack.
+     * @throws UnpackException If the unpack can't be done at all.
+     */
+    UnpackResult unpack(AssetUnpackerConfig config, Map<String, AssetIndex> indexes, List<UnpackTarget> targets, boolean update, UnpackListener listener, UnpackStats stats) {
+        Path objectsDir = objectsDir(config);
+
+        // Every object is scheduled once, with all the assets using it across the indexes
+        Map<String, List<UnpackTarget>> targetsByHash = new LinkedHashMap<>();
+        for (UnpackTarget target : targets) {
+            targetsByHash.computeIfAbsent(target.asset().hash(), hash -> new ArrayList<>(1)).add(target);
         }
-        JsonUtils.readIndexesJson(indexesFileContent, indexes);
+        stats.uniqueObjects(targetsByHash.size());
+
+        UnpackListener progress = new UnpackListener() {
+            @Override
+            public void assetUnpacked(Asset asset, UnpackOutcome outcome) {
+                stats.unpacked(asset, outcome);
+                listener.assetUnpacked(asset, outcome);
+            }
 
-        final int assetsAmount = indexes.size();
-        System.out.println("Found " + assetsAmount + " assets to unpack in the indexes file!");
-        System.out.println("Unpacking files...");
-        long startTime = System.currentTimeMillis();
+            @Override
+            public void assetFailed(Asset asset, Exception cause) {
+                stats.failed(asset, cause);
+                listener.assetFailed(asset, cause);
+            }
+        };
+        // An update only looks up a few objects, which is cheaper than checking the shards of the manifest
+        ObjectManifest manifest = config.objectManifest() && !update ? ObjectManifest.load(objectsDir, ObjectManifest.fileFor(config.outputDir())) : null;
+        try (OutputSink sink = update ? new DirectorySink(config, indexes, true) : OutputSink.create(config, indexes)) {
+            if (!update) {
+                sink.prepare(stats);
+            }
 
-        int unpackedFileCount = 0;
-        for (Map.Entry<String, String> asset : indexes.entrySet()) {
-            String path = asset.getKey();
-            String hash = asset.getValue();
-            // Assets are stored in a folder named by the two-first letters of the hash
-            Path objectPath = objectsDir.resolve(hash.substring(0, 2).concat("/").concat(hash));
+            listener.started(config, targets.size());
+            long phaseStart = System.nanoTime();
+            UnpackEvents.PhaseEvent event = UnpackEvents.beginPhase(UnpackPhase.COPY, String.join(", ", indexes.keySet()));
+            // The engine may not be the one asked for, virtual threads fall back to a pool on Java 17
+            UnpackEngine engine = UnpackEngine.create(config);
+            UnpackScheduler scheduler = new UnpackScheduler(engine.parallelism());
+            for (List<UnpackTarget> objectTargets : targetsByHash.values()) {
+                Asset asset = objectTargets.get(0).asset();
+                scheduler.add(asset.size() * objectTargets.size(), asset.path(), () -> unpackObject(objectTargets, objectsDir, manifest, sink, config, progress));
+            }
 
-            if(Files.notExists(objectPath)) {
-                System.err.println("Found non-existing object in the indexes json! Check that your assets are up to date!");
-                continue;
+            List<Runnable> jobs = scheduler.schedule();
+            Runnable throughput = UnpackEvents.startThroughput(stats, scheduler);
+            try {
+                engine.run(jobs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnpackException("Interrupted while unpacking the assets.", e);
+            } finally {
+                UnpackEvents.stopThroughput(throughput);
             }
+            long end = System.nanoTime();
+            stats.phase(UnpackPhase.COPY, end - phaseStart);
+            UnpackEvents.end(event);
+            stats.criticalPath(new UnpackResult.CriticalPath(scheduler.criticalPathName(), scheduler.criticalPath(), scheduler.tail(end)));
 
-            Path resultPath = outputDir.resolve(path);
+            if (!update) {
+                sink.finish(stats);
+            }
+        } catch (IOException e) {
+            throw new UnpackException("Failed to close the output.", e);
+        }
+        if (manifest != null) {
             try {
-                // The 'copy' function doesn't create the parent directories for us
-                Files.createDirectories(resultPath.getParent());
-                Files.copy(objectPath, resultPath);
-                unpackedFileCount++;
+                manifest.save();
             } catch (IOException e) {
-                System.err.println("Failed to copy asset with path '" + path + "'!");
+                System.err.println("Failed to save the object manifest! (" + e + ")");
             }
         }
 
-        System.out.println("Unpacked " + unpackedFileCount + "/" + assetsAmount + " files in " + TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime) + " seconds!");
+        UnpackResult result = stats.toResult(targets.size());
+        listener.finished(result);
+        return result;
+    }
+
+    /**
+     * @param config The config of the unpacker.
+     * @param assetsIndex One of the asset index versions.
+     * @return The asset index file of the version.
+     */
+    static Path indexesFile(AssetUnpackerConfig config, String assetsIndex) {
+        return config.mcDir().resolve("assets/indexes/".concat(assetsIndex).concat(".json")).toAbsolutePath();
+    }
+
+    /**
+     * @param config The config of the unpacker.
+     * @return The 'objects' directory of the Minecraft assets.
+     */
+    static Path objectsDir(AssetUnpackerConfig config) {
+        return config.mcDir().resolve("assets/objects").toAbsolutePath();
+    }
+
+    /**
+     * Reads the asset index files, concurrently if there are several of them.
+     *
+     * @param indexesFiles The asset index files.
+     * @param config The config of the unpacker.
+     * @param stats The stats receiving the time spent reading and parsing the files.
+     * @return The asset indexes, in the same order as the files.
+     * @throws UnpackException If one of the files couldn't be read.
+     */
+    private static AssetIndex[] readIndexes(List<Path> indexesFiles, AssetUnpackerConfig config, UnpackStats stats) {
+        AssetIndex[] indexes = new AssetIndex[indexesFiles.size()];
+        Exception[] errors = new Exception[indexesFiles.size()];
+        List<Runnable> jobs = new ArrayList<>(indexesFiles.size());
+        for (int i = 0; i < indexesFiles.size(); i++) {
+            int slot = i;
+            jobs.add(() -> {
+                long start = System.nanoTime();
+                AssetIndex.Builder builder = new AssetIndex.Builder();
+                Path indexesFile = indexesFiles.get(slot);
+                UnpackEvents.IndexReadEvent event = UnpackEvents.beginIndexRead(indexesFile);
+                try {
+                    long readNanos = config.pathFilter().isAll() ? builder.read(indexesFile) : builder.read(indexesFile, config.pathFilter());
+                    indexes[slot] = builder.build();
+                    long parseNanos = System.nanoTime() - start - readNanos;
+                    stats.phase(UnpackPhase.INDEX_READ, readNanos);
+                    stats.phase(UnpackPhase.PARSE, parseNanos);
+                    UnpackEvents.end(event, indexes[slot].size(), readNanos, parseNanos);
+                } catch (IOException | RuntimeException e) {
+                    errors[slot] = e;
+                }
+            });
+        }
+        try {
+            if (jobs.size() == 1) {
+                jobs.get(0).run();
+            } else {
+                UnpackEngine.create(config).run(jobs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnpackException("Interrupted while reading the indexes files.", e);
+        }
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                throw new UnpackException("Failed to read indexes file '" + indexesFiles.get(i).getFileName().toString() + "'!", errors[i]);
+            }
+        }
+        return indexes;
     }
 
     /**
-     * Empties a directory without deleting it using recursion.<br>
-     * If the given path is a file, it doesn't do anything.
+     * Checks that an object can be unpacked and passes it to the sink.
+     * This method may be called from several threads at once. It doesn't throw: an exception escaping a job would end
+     * the worker running it, and its assets would be reported neither as unpacked nor as failed. So the assets that
+     * weren't reported yet when something unexpected is thrown are reported as failed.
      *
-     * @param path The path of the directory to empty.
-     * @throws IOException If an I/O error occurs.
+     * @param targets The assets using the object, which all have the same hash.
+     * @param objectsDir The 'objects' directory of the Minecraft assets.
+     * @param manifest The manifest of the object files, or {@code null} to check the object file itself.
+     * @param sink The sink writing the assets.
+     * @param config The config of the unpacker.
+     * @param listener The listener receiving the outcome of each asset.
      */
-    private void cleanDirectory(Path path) throws IOException {
-        if (Files.isDirectory(path)) {
-            try (Stream<Path> stream = Files.list(path)) {
-                List<Path> paths = stream.toList();
-                for (Path p : paths) {
-                    // This won't do anything for files
-                    cleanDirectory(p);
-                    // But they're still deleted so it's ok
-                    Files.delete(p);
+    private void unpackObject(List<UnpackTarget> targets, Path objectsDir, ObjectManifest manifest, OutputSink sink, AssetUnpackerConfig config, UnpackListener listener) {
+        Set<Asset> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+        UnpackListener reporting = new UnpackListener() {
+            @Override
+            public void assetUnpacked(Asset asset, UnpackOutcome outcome) {
+                reported.add(asset);
+                listener.assetUnpacked(asset, outcome);
+            }
+
+            @Override
+            public void assetFailed(Asset asset, Exception cause) {
+                reported.add(asset);
+                listener.assetFailed(asset, cause);
+            }
+        };
+        try {
+            checkAndWrite(targets, objectsDir, manifest, sink, config, reporting);
+        } catch (RuntimeException | Error e) {
+            Exception cause = e instanceof RuntimeException runtimeException ? runtimeException
+                    : new UnpackException("Unexpected error while unpacking object '" + targets.get(0).asset().hash() + "'.", e);
+            for (UnpackTarget target : targets) {
+                if (!reported.contains(target.asset())) {
+                    UnpackEvents.end(UnpackEvents.beginAsset(target), null, cause);
+                    listener.assetFailed(target.asset(), cause);
                 }
             }
         }
     }
 
+    private void checkAndWrite(List<UnpackTarget> targets, Path objectsDir, ObjectManifest manifest, OutputSink sink, AssetUnpackerConfig config, UnpackListener listener) {
+        Asset asset = targets.get(0).asset();
+        Path objectPath = objectsDir.resolve(asset.objectName());
+        try {
+            long objectSize;
+            if (manifest != null) {
+                objectSize = manifest.size(asset.hash());
+                if (objectSize == -1) {
+                    throw new NoSuchFileException(objectPath.toString(), null, "Found non-existing object in the indexes json! Check that your assets are up to date!");
+                }
+            } else {
+                if(Files.notExists(objectPath)) {
+                    throw new NoSuchFileException(objectPath.toString(), null, "Found non-existing object in the indexes json! Check that your assets are up to date!");
+                }
+                // Checking the size first is cheap and catches truncated objects without reading them
+                objectSize = config.verify() ? Files.size(objectPath) : asset.size();
+            }
+            if (config.verify() && objectSize != asset.size()) {
+                throw new CorruptedObjectException("Object '" + asset.hash() + "' has a size of " + objectSize + " bytes, expected " + asset.size() + " bytes.");
+            }
+        } catch (IOException e) {
+            for (UnpackTarget target : targets) {
+                UnpackEvents.end(UnpackEvents.beginAsset(target), null, e);
+                listener.assetFailed(target.asset(), e);
+            }
+            return;
+        }
+        sink.write(objectPath, targets, listener);
+    }
+
     /**
      * @return The path of the directory containing the running jar file.
      */
@@ -127,21 +348,57 @@ public class MinecraftAssetUnpacker {
 
     public static void main(String[] args) {
         try {
-            new MinecraftAssetUnpacker().start(AssetUnpackerConfig.parseArgs(args));
+            AssetUnpackerConfig config = AssetUnpackerConfig.parseArgs(args);
+            if (config.servePort() != 0) {
+                AssetServer server = new AssetServer(config);
+                InetSocketAddress address = server.start(config.servePort());
+                System.out.println("Serving the assets of " + String.join(", ", config.assetsIndexes()) + " on http://"
+                        + address.getHostString() + ":" + address.getPort() + "/");
+            } else if (config.watch()) {
+                new AssetWatcher(new MinecraftAssetUnpacker(), config).run();
+            } else {
+                new MinecraftAssetUnpacker().start(config);
+            }
         } catch (ConfigParsingError e) {
             String msg = e.getMessage();
             if (msg.equals("help")) {
                 System.out.println("---Minecraft Asset Unpacker--- ** by LGatodu47");
                 System.out.println("Argument scheme: -[arg]=[value], e.g. -abc=hello");
                 System.out.println("-mcd=<Path> | A path to the minecraft directory. Will try to detect it if not specified");
-                System.out.println("-ai=<Version> | A version for the minecraft asset index");
-                System.out.println("-od=<Path> | A path to an output directory (defaults to `runDir`/unpacked/`indexesVersion`)");
+                System.out.println("-ai=<Version> | A version for the minecraft asset index, or several separated by commas. Globs such as 1.1* and 'all' select the matching indexes");
+                System.out.println("-od=<Path> | A path to an output directory (defaults to `runDir`/unpacked/`indexesVersion`), with a subdirectory per version when there are several. A path ending with .zip or .jar writes an archive instead");
                 System.out.println("-reo=<Boolean> | If existing files in the output directory should be replaced or not (defaults to false)");
+                System.out.println("-threads=<Integer> | The amount of threads copying the assets (defaults to the amount of available processors)");
+                System.out.println("-virtual=<Boolean> | If each asset should be copied on its own virtual thread, requires Java 21+ (defaults to false)");
+                System.out.println("-maxinflight=<Integer> | The maximum amount of assets copied at once with virtual threads (defaults to 256)");
+                System.out.println("-incremental=<off|size|hash> | Keeps the outputs matching their asset by size or hash and only copies the others (defaults to off)");
+                System.out.println("-strategy=<copy|hardlink|symlink|reflink> | How the output files are created from the object files, falls back to copy per file (defaults to copy)");
+                System.out.println("-verify=<Boolean> | If the size and hash of the object files should be checked while unpacking them (defaults to false)");
+                System.out.println("-moveaside=<Boolean> | If the old output should be moved aside and deleted in the background instead of before unpacking (defaults to false)");
+                System.out.println("-dedup=<off|copy|link> | How the assets sharing the same object are created: from the object, copied from the first one or hard-linked to it (defaults to copy)");
+                System.out.println("-include=<Globs> | Comma separated globs of the assets to unpack, e.g. minecraft/lang/*,minecraft/sounds/music/** (defaults to all of them)");
+                System.out.println("-exclude=<Globs> | Comma separated globs of the assets to skip");
+                System.out.println("-copythreshold=<Size> | The size up to which files are copied through a buffer, larger ones are transferred by the system, e.g. 64k or 1m (defaults to 256k)");
+                System.out.println("-manifest=<Boolean> | If the object files should be remembered next to the output, so that the next runs don't check each of them (defaults to false)");
+                System.out.println("-watch=<Boolean> | If the unpacker should keep running and unpack again the assets affected by changes to the indexes or objects (defaults to false)");
+                System.out.println("-base=<Version> | An older asset index version: only the assets added or changed since then are unpacked, and the changes are listed in a .changes.json file next to the output. Can't be combined with -incremental");
+                System.out.println("-resume=<Boolean> | If an interrupted unpack to the same output directory should be resumed instead of started over (defaults to false)");
+                System.out.println("-serve=<Port> | Serves the assets over HTTP on localhost at the paths they would be unpacked to, instead of unpacking them");
                 System.out.println();
                 return;
             }
             System.err.println("There are one or more missing or invalid arguments: " + msg);
             System.out.println("Run with 'help' for a list of the available arguments.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Failed to watch the Minecraft directory for changes.");
+            e.printStackTrace();
+        } catch (UnpackException e) {
+            System.err.println(e.getMessage());
+            if (e.getCause() != null) {
+                e.getCause().printStackTrace();
+            }
         } catch (RuntimeException e) {
             e.printStackTrace();
         } catch (Throwable t) {
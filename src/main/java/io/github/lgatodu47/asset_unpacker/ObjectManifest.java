@@ -0,0 +1,280 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A persistent list of the object files of a Minecraft directory, with their size and modification time, which spares
+ * a system call per asset on repeated runs.<br>
+ * The objects are split in 256 shards, one per 'objects/xx' directory. Adding or removing a file changes the
+ * modification time of its directory, so a shard recorded with the current modification time of its directory is
+ * still accurate and is trusted without looking at its files. The other shards are listed again. Shards are checked
+ * lazily, the first time one of their objects is looked up, so a run only pays for the shards it uses.<br>
+ * The manifest is stored next to the output, in a binary file rewritten atomically when it changed.
+ */
+final class ObjectManifest {
+    private static final int MAGIC = 0x4D41554D;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SHARDS = 256;
+    /**
+     * The modification time of a shard that must be listed again.
+     */
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    /**
+     * Shards whose directory changed this close to the save aren't trusted by the next run: a file added right
+     * afterwards, within the precision of the file system's timestamps, wouldn't change their modification time.
+     */
+    private static final long RACY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final Path objectsDir;
+    private final Path file;
+    private final Shard[] shards = new Shard[SHARDS];
+    /**
+     * The shards already checked against their directory during this run.
+     */
+    private final AtomicReferenceArray<Shard> checked = new AtomicReferenceArray<>(SHARDS);
+    /**
+     * Each shard has its own lock, so that different shards can be listed at the same time.
+     */
+    private final Object[] locks = new Object[SHARDS];
+    private final AtomicInteger listedShards = new AtomicInteger();
+    private volatile boolean dirty;
+
+    private ObjectManifest(Path objectsDir, Path file) {
+        this.objectsDir = objectsDir;
+        this.file = file;
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    /**
+     * @param output The output directory or archive.
+     * @return The manifest file used with this output.
+     */
+    static Path fileFor(Path output) {
+        Path absolute = output.toAbsolutePath();
+        return absolute.resolveSibling("." + absolute.getFileName() + ".objects");
+    }
+
+    /**
+     * Loads the manifest of an 'objects' directory. A missing, corrupted or foreign manifest file is ignored,
+     * and all the shards will be listed.
+     *
+     * @param objectsDir The 'objects' directory.
+     * @param file The manifest file.
+     * @return The manifest.
+     */
+    static ObjectManifest load(Path objectsDir, Path file) {
+        ObjectManifest manifest = new ObjectManifest(objectsDir, file);
+        if (!Files.isRegularFile(file)) {
+            return manifest;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(objectsDir.toString())) {
+                return manifest;
+            }
+            int shardCount = in.readUnsignedShort();
+            for (int i = 0; i < shardCount; i++) {
+                int index = in.readUnsignedByte();
+                long mtime = in.readLong();
+                int count = in.readInt();
+                byte[] hashes = new byte[count * AssetIndex.HASH_LENGTH];
+                in.readFully(hashes);
+                long[] sizes = new long[count];
+                long[] mtimes = new long[count];
+                for (int j = 0; j < count; j++) {
+                    sizes[j] = in.readLong();
+                    mtimes[j] = in.readLong();
+                }
+                manifest.shards[index] = new Shard(mtime, hashes, sizes, mtimes);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring the invalid object manifest '" + file + "'. (" + e + ")");
+            Arrays.fill(manifest.shards, null);
+        }
+        return manifest;
+    }
+
+    /**
+     * Looks an object up. This method may be called from several threads at once.
+     *
+     * @param hash The hash of the object, which must be a valid SHA-1 hash.
+     * @return The size of the object file, or -1 if it doesn't exist.
+     * @throws IOException If the shard of the object had to be listed and an I/O error occurred.
+     */
+    long size(String hash) throws IOException {
+        byte[] key = new byte[AssetIndex.HASH_LENGTH];
+        if (!HashUtils.fromHex(hash, key, 0)) {
+            return -1;
+        }
+        Shard shard = shard(key[0] & 0xFF);
+        int i = shard.find(key);
+        return i < 0 ? -1 : shard.sizes[i];
+    }
+
+    /**
+     * @return The amount of shards that had to be listed because they changed since the manifest was saved.
+     */
+    int listedShards() {
+        return listedShards.get();
+    }
+
+    /**
+     * Saves the manifest if some of its shards were listed again. It must not be called while objects are looked up.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        long racyLimit = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - RACY_NANOS;
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(objectsDir.toString());
+            out.writeShort((int) Arrays.stream(shards).filter(Objects::nonNull).count());
+            for (int i = 0; i < SHARDS; i++) {
+                Shard shard = shards[i];
+                if (shard == null) {
+                    continue;
+                }
+                out.writeByte(i);
+                out.writeLong(shard.mtime >= racyLimit ? UNKNOWN : shard.mtime);
+                out.writeInt(shard.sizes.length);
+                out.write(shard.hashes);
+                for (int j = 0; j < shard.sizes.length; j++) {
+                    out.writeLong(shard.sizes[j]);
+                    out.writeLong(shard.mtimes[j]);
+                }
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    /**
+     * @return The shard with the given index, checked against its directory.
+     */
+    private Shard shard(int index) throws IOException {
+        Shard shard = checked.get(index);
+        return shard != null ? shard : check(index);
+    }
+
+    private Shard check(int index) throws IOException {
+        synchronized (locks[index]) {
+            Shard shard = checked.get(index);
+            if (shard != null) {
+                return shard;
+            }
+            Path dir = objectsDir.resolve(HashUtils.toHex(new byte[]{(byte) index}));
+            long mtime;
+            try {
+                mtime = Files.getLastModifiedTime(dir).to(TimeUnit.NANOSECONDS);
+            } catch (NoSuchFileException e) {
+                mtime = UNKNOWN;
+            }
+            shard = shards[index];
+            if (mtime == UNKNOWN) {
+                // No object starts with these two digits, there is nothing to remember
+                shard = Shard.EMPTY;
+            } else if (shard == null || shard.mtime == UNKNOWN || shard.mtime != mtime) {
+                shard = list(dir, mtime);
+                shards[index] = shard;
+                listedShards.incrementAndGet();
+                dirty = true;
+            }
+            checked.set(index, shard);
+            return shard;
+        }
+    }
+
+    /**
+     * Lists the object files of a shard directory.
+     *
+     * @param dir The directory.
+     * @param mtime The modification time of the directory, read before listing it.
+     */
+    private static Shard list(Path dir, long mtime) throws IOException {
+        byte[] hashes = new byte[64 * AssetIndex.HASH_LENGTH];
+        long[] sizes = new long[64];
+        long[] mtimes = new long[64];
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                if (count == sizes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2 * AssetIndex.HASH_LENGTH);
+                    sizes = Arrays.copyOf(sizes, count * 2);
+                    mtimes = Arrays.copyOf(mtimes, count * 2);
+                }
+                if (!HashUtils.fromHex(path.getFileName().toString(), hashes, count * AssetIndex.HASH_LENGTH)) {
+                    continue;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                sizes[count] = attributes.size();
+                mtimes[count] = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                count++;
+            }
+        }
+        return Shard.sorted(mtime, hashes, sizes, mtimes, count);
+    }
+
+    /**
+     * The objects of an 'objects/xx' directory, sorted by hash.
+     */
+    private record Shard(long mtime, byte[] hashes, long[] sizes, long[] mtimes) {
+        private static final Shard EMPTY = new Shard(UNKNOWN, new byte[0], new long[0], new long[0]);
+
+        private static Shard sorted(long mtime, byte[] hashes, long[] sizes, long[] mtimes, int count) {
+            Integer[] order = new Integer[count];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(hashes, a * AssetIndex.HASH_LENGTH, (a + 1) * AssetIndex.HASH_LENGTH,
+                    hashes, b * AssetIndex.HASH_LENGTH, (b + 1) * AssetIndex.HASH_LENGTH));
+            byte[] sortedHashes = new byte[count * AssetIndex.HASH_LENGTH];
+            long[] sortedSizes = new long[count];
+            long[] sortedMtimes = new long[count];
+            for (int i = 0; i < count; i++) {
+                int j = order[i];
+                System.arraycopy(hashes, j * AssetIndex.HASH_LENGTH, sortedHashes, i * AssetIndex.HASH_LENGTH, AssetIndex.HASH_LENGTH);
+                sortedSizes[i] = sizes[j];
+                sortedMtimes[i] = mtimes[j];
+            }
+            return new Shard(mtime, sortedHashes, sortedSizes, sortedMtimes);
+        }
+
+        /**
+         * @return The index of the object with the given hash, or a negative value if there is none.
+         */
+        private int find(byte[] key) {
+            int low = 0;
+            int high = sizes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comparison = Arrays.compareUnsigned(hashes, mid * AssetIndex.HASH_LENGTH, (mid + 1) * AssetIndex.HASH_LENGTH,
+                        key, 0, AssetIndex.HASH_LENGTH);
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else if (comparison > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where {@link MinecraftAssetUnpacker} writes the unpacked assets: a directory tree, see {@link DirectorySink},
+ * or an archive, see {@link ZipSink}.
+ */
+interface OutputSink extends Closeable {
+    /**
+     * Creates the sink matching the output of a config.
+     *
+     * @param config The config of the unpack.
+     * @param indexes The asset indexes to unpack, by version.
+     * @return A new sink.
+     */
+    static OutputSink create(AssetUnpackerConfig config, Map<String, AssetIndex> indexes) {
+        return config.archiveOutput() ? new ZipSink(config) : new DirectorySink(config, indexes);
+    }
+
+    /**
+     * Gets the output ready to receive the assets, before any of them is written.
+     *
+     * @param stats The stats of the unpack.
+     * @throws UnpackException If the output can't be used.
+     */
+    void prepare(UnpackStats stats);
+
+    /**
+     * Writes all the outputs of an object, whose existence and size were already checked.
+     * This method may be called from several threads at once, but never twice for the same object.
+     *
+     * @param objectPath The object file.
+     * @param targets The assets using the object, which all have the same hash.
+     * @param listener The listener receiving the outcome of each asset.
+     */
+    void write(Path objectPath, List<UnpackTarget> targets, UnpackListener listener);
+
+    /**
+     * Called once all the assets were written, before closing the sink.
+     *
+     * @param stats The stats of the unpack.
+     */
+    default void finish(UnpackStats stats) {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls how {@link MinecraftAssetUnpacker} creates the output file of an asset from its object file.<br>
+ * Object files are named after their content and never change, which makes it safe to link to them instead
+ * of copying their bytes. <strong>Note that editing a hard-linked output in place also edits the object file!</strong><br>
+ * Whenever a link can't be created (for example when the output directory is on another device), the strategies
+ * fall back to copying the object file.
+ */
+public enum OutputStrategy {
+    /**
+     * The object file is copied, which is the default behavior.
+     */
+    COPY {
+        @Override
+        boolean apply(FileCopier copier, Path objectPath, Path resultPath, long size, MessageDigest digest) throws IOException {
+            // The content is hashed while it is copied so that the object file isn't read twice
+            copier.copy(objectPath, resultPath, size, digest);
+            return false;
+        }
+    },
+    /**
+     * The output is a hard link to the object file.
+     */
+    HARDLINK {
+        @Override
+        boolean apply(FileCopier copier, Path objectPath, Path resultPath, long size, MessageDigest digest) throws IOException {
+            hashObject(objectPath, digest);
+            try {
+                Files.createLink(resultPath, objectPath);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (IOException | UnsupportedOperationException e) {
+                return COPY.apply(copier, objectPath, resultPath, size, null);
+            }
+        }
+    },
+    /**
+     * The output is a symbolic link to the object file.
+     */
+    SYMLINK {
+        @Override
+        boolean apply(FileCopier copier, Path objectPath, Path resultPath, long size, MessageDigest digest) throws IOException {
+            hashObject(objectPath, digest);
+            try {
+                Files.createSymbolicLink(resultPath, objectPath.toAbsolutePath());
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (IOException | UnsupportedOperationException e) {
+                return COPY.apply(copier, objectPath, resultPath, size, null);
+            }
+        }
+    },
+    /**
+     * The output is a copy-on-write clone of the object file, which only works on file systems supporting it (btrfs, XFS, APFS...).<br>
+     * Java doesn't expose reflinks, so this relies on the {@code cp} command of the system and starts one process per asset.
+     */
+    REFLINK {
+        @Override
+        boolean apply(FileCopier copier, Path objectPath, Path resultPath, long size, MessageDigest digest) throws IOException {
+            if (!reflinkUnavailable) {
+                hashObject(objectPath, digest);
+                try {
+                    Process process = new ProcessBuilder(reflinkCommand(objectPath, resultPath))
+                            .redirectErrorStream(true)
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .start();
+                    if (process.waitFor(1, TimeUnit.MINUTES) && process.exitValue() == 0) {
+                        reflinkWorked = true;
+                        return true;
+                    }
+                    process.destroyForcibly();
+                    if (!reflinkWorked) {
+                        // The very first clone failed, the output file system most likely doesn't support them at all.
+                        // This avoids starting a process per asset for nothing.
+                        reflinkUnavailable = true;
+                    }
+                } catch (IOException e) {
+                    // There is no 'cp' command, don't try again
+                    reflinkUnavailable = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while cloning '" + objectPath + "'.");
+                }
+                // 'cp' fails without touching the output if the clone can't be made, but we make sure of it anyway
+                Files.deleteIfExists(resultPath);
+                return COPY.apply(copier, objectPath, resultPath, size, null);
+            }
+            return COPY.apply(copier, objectPath, resultPath, size, digest);
+        }
+    };
+
+    /**
+     * Set once it is known that the system can't create reflinks at all.
+     */
+    private static volatile boolean reflinkUnavailable = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+    /**
+     * Set once a reflink was successfully created.
+     */
+    private static volatile boolean reflinkWorked;
+
+    /**
+     * Creates the output file of an asset. The output file must not exist yet.
+     *
+     * @param copier The copier used when the object file is copied.
+     * @param objectPath The path of the object file.
+     * @param resultPath The path of the output file.
+     * @param size The size of the object file given by the index.
+     * @param digest If not {@code null}, the digest is updated with the content of the object file.
+     * @return {@code true} if the output is a link or a clone, {@code false} if the object file was copied.
+     * @throws IOException If an I/O error occurs.
+     */
+    abstract boolean apply(FileCopier copier, Path objectPath, Path resultPath, long size, MessageDigest digest) throws IOException;
+
+    /**
+     * Links don't read the object file, so it has to be read separately to be hashed.
+     *
+     * @param objectPath The path of the object file.
+     * @param digest The digest to update, or {@code null} if the object file doesn't need to be hashed.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void hashObject(Path objectPath, MessageDigest digest) throws IOException {
+        if (digest != null) {
+            HashUtils.update(digest, objectPath);
+        }
+    }
+
+    /**
+     * @return The command that clones a file on the current system, failing if it can't be cloned.
+     */
+    private static String[] reflinkCommand(Path objectPath, Path resultPath) {
+        if (System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("mac")) {
+            // BSD 'cp' uses clonefile(2) with -c
+            return new String[]{"cp", "-c", objectPath.toString(), resultPath.toString()};
+        }
+        return new String[]{"cp", "--reflink=always", objectPath.toString(), resultPath.toString()};
+    }
+}
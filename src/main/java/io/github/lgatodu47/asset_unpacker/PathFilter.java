@@ -0,0 +1,231 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Selects assets by their path with include and exclude globs, such as {@code minecraft/lang/*} or
+ * {@code minecraft/sounds/music/**}. An asset is selected if it matches at least one include glob (or if there is none)
+ * and no exclude glob.<br>
+ * In a glob, {@code *} matches any part of a path segment, {@code ?} matches a single character of a segment and a
+ * {@code **} segment matches any amount of segments. A glob ending with '/' matches everything under that directory.<br>
+ * The globs are compiled into a trie of their leading literal segments, so a path is matched by walking its segments down
+ * the trie: a path that doesn't share a prefix with any glob is rejected after looking up its first segment, and the
+ * wildcards are only evaluated against the paths that reach them. No regex is involved.
+ */
+public final class PathFilter implements Predicate<String> {
+    /**
+     * The filter selecting every asset.
+     */
+    public static final PathFilter ALL = new PathFilter(null, new Node());
+
+    /**
+     * The include globs, or {@code null} if everything is included.
+     */
+    private final Node includes;
+    private final Node excludes;
+
+    private PathFilter(Node includes, Node excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Compiles include and exclude globs into a filter.
+     *
+     * @param includes The globs of the assets to select, or an empty collection to select every asset.
+     * @param excludes The globs of the assets to skip.
+     * @return The filter.
+     */
+    public static PathFilter of(Collection<String> includes, Collection<String> excludes) {
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return ALL;
+        }
+        return new PathFilter(includes.isEmpty() ? null : compile(includes), compile(excludes));
+    }
+
+    /**
+     * @return If this filter selects every asset.
+     */
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * @param path The path of an asset, with '/' separators.
+     * @return If the asset is selected by this filter.
+     */
+    @Override
+    public boolean test(String path) {
+        return (includes == null || includes.matches(path)) && !excludes.matches(path);
+    }
+
+    private static Node compile(Collection<String> globs) {
+        Node root = new Node();
+        for (String glob : globs) {
+            String normalized = glob.trim().replace('\\', '/');
+            while (normalized.startsWith("/") || normalized.startsWith("./")) {
+                normalized = normalized.substring(normalized.charAt(0) == '/' ? 1 : 2);
+            }
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            if (normalized.endsWith("/")) {
+                normalized = normalized.concat("**");
+            }
+            root.add(normalized.split("/+"), 0);
+        }
+        return root;
+    }
+
+    /**
+     * Matches the segments of a path, starting at the given index, against glob segments.
+     *
+     * @param pattern The glob segments.
+     * @param p The index of the first glob segment to match.
+     * @param path The path.
+     * @param start The index of the first character of the path to match, or {@code path.length() + 1} if the whole path was matched.
+     * @return If the rest of the path matches the rest of the glob.
+     */
+    private static boolean matchSegments(String[] pattern, int p, String path, int start) {
+        boolean done = start > path.length();
+        if (p == pattern.length) {
+            return done;
+        }
+        if (pattern[p].equals("**")) {
+            if (p + 1 == pattern.length) {
+                return !done;
+            }
+            // Either '**' matches no more segments, or it swallows the next one
+            if (matchSegments(pattern, p + 1, path, start)) {
+                return true;
+            }
+            return !done && matchSegments(pattern, p, path, segmentEnd(path, start) + 1);
+        }
+        if (done) {
+            return false;
+        }
+        int end = segmentEnd(path, start);
+        return matchSegment(pattern[p], path, start, end) && matchSegments(pattern, p + 1, path, end + 1);
+    }
+
+    /**
+     * Matches a single path segment against a glob segment containing '*' and '?' wildcards.
+     */
+    private static boolean matchSegment(String glob, String path, int start, int end) {
+        int g = 0;
+        int s = start;
+        int starGlob = -1;
+        int starPath = -1;
+        while (s < end) {
+            if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == path.charAt(s))) {
+                g++;
+                s++;
+            } else if (g < glob.length() && glob.charAt(g) == '*') {
+                starGlob = g++;
+                starPath = s;
+            } else if (starGlob != -1) {
+                // Let the last star swallow one more character
+                g = starGlob + 1;
+                s = ++starPath;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end == -1 ? path.length() : end;
+    }
+
+    private static boolean isLiteral(String segment) {
+        return segment.indexOf('*') == -1 && segment.indexOf('?') == -1;
+    }
+
+    /**
+     * A node of the trie, reached by the literal segments leading to it.
+     */
+    private static final class Node {
+        private String[] names = new String[0];
+        private Node[] children = new Node[0];
+        /**
+         * If a glob ends here, which matches the path made of the literal segments only.
+         */
+        private boolean terminal;
+        /**
+         * If a glob ending with '**' ends here, which matches everything under this node.
+         */
+        private boolean everything;
+        /**
+         * The remaining segments of the globs whose first wildcard segment is below this node.
+         */
+        private final List<String[]> patterns = new ArrayList<>();
+
+        private void add(String[] segments, int from) {
+            if (from == segments.length) {
+                terminal = true;
+            } else if (from == segments.length - 1 && segments[from].equals("**")) {
+                everything = true;
+            } else if (isLiteral(segments[from])) {
+                child(segments[from]).add(segments, from + 1);
+            } else {
+                patterns.add(Arrays.copyOfRange(segments, from, segments.length));
+            }
+        }
+
+        private Node child(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return children[i];
+                }
+            }
+            names = Arrays.copyOf(names, names.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            names[names.length - 1] = name;
+            return children[children.length - 1] = new Node();
+        }
+
+        /**
+         * Looks up the child named after a segment of a path, without extracting the segment.
+         */
+        private Node child(String path, int start, int end) {
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                if (name.length() == end - start && path.regionMatches(start, name, 0, name.length())) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(String path) {
+            Node node = this;
+            int start = 0;
+            while (true) {
+                if (node.everything) {
+                    return true;
+                }
+                for (String[] pattern : node.patterns) {
+                    if (matchSegments(pattern, 0, path, start)) {
+                        return true;
+                    }
+                }
+                int end = segmentEnd(path, start);
+                Node child = node.child(path, start, end);
+                if (child == null) {
+                    return false;
+                }
+                if (end == path.length()) {
+                    return child.terminal;
+                }
+                node = child;
+                start = end + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * The size ranges the copied assets are grouped by in the {@link UnpackResult}, to tune the
+ * {@linkplain AssetUnpackerConfig#copyThreshold() copy threshold}.
+ */
+public enum SizeBucket {
+    /**
+     * Less than 4 KiB, mostly '.mcmeta' and small '.json' files.
+     */
+    UNDER_4_KIB("< 4 KiB", 4L << 10),
+    /**
+     * From 4 to 64 KiB, mostly textures and sound effects.
+     */
+    UNDER_64_KIB("< 64 KiB", 64L << 10),
+    /**
+     * From 64 KiB to 1 MiB.
+     */
+    UNDER_1_MIB("< 1 MiB", 1L << 20),
+    /**
+     * From 1 to 16 MiB, mostly music and language files.
+     */
+    UNDER_16_MIB("< 16 MiB", 16L << 20),
+    /**
+     * 16 MiB or more.
+     */
+    LARGER(">= 16 MiB", Long.MAX_VALUE);
+
+    private final String label;
+    private final long limit;
+
+    SizeBucket(String label, long limit) {
+        this.label = label;
+        this.limit = limit;
+    }
+
+    /**
+     * @return A short description of the size range, such as '&lt; 4 KiB'.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * @param size A size in bytes.
+     * @return The bucket containing the given size.
+     */
+    public static SizeBucket of(long size) {
+        for (SizeBucket bucket : values()) {
+            if (size < bucket.limit) {
+                return bucket;
+            }
+        }
+        return LARGER;
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the unpacking jobs of {@link MinecraftAssetUnpacker}.
+ * Jobs are expected to handle and report their own failures, including unexpected exceptions: an exception thrown by
+ * a job ends the worker thread running it, or stops the submission of the jobs when the calling thread runs it.
+ */
+interface UnpackEngine {
+    /**
+     * Runs all the given jobs and waits for them to complete.
+     *
+     * @param jobs The jobs to run.
+     * @throws InterruptedException If the current thread was interrupted while waiting for the jobs.
+     */
+    void run(Collection<? extends Runnable> jobs) throws InterruptedException;
+
+    /**
+     * @return The maximum amount of jobs this engine runs at the same time.
+     */
+    int parallelism();
+
+    /**
+     * @param config The config of the unpacker.
+     * @return The engine matching the given config.
+     */
+    static UnpackEngine create(AssetUnpackerConfig config) {
+        if(config.virtualThreads()) {
+            ExecutorService executor = Virtual.newVirtualThreadExecutor();
+            if(executor != null) {
+                return new Virtual(executor, config.maxInFlight());
+            }
+            System.err.println("Virtual threads are not available on this Java runtime (" + Runtime.version() + "), falling back to platform threads.");
+        }
+        if(config.threads() == 1) {
+            return new Sequential();
+        }
+        return new Pooled(config.threads());
+    }
+
+    /**
+     * Waits for a shut down executor to complete all of its jobs. If the wait is interrupted, the remaining jobs are cancelled.
+     *
+     * @param executor The executor to wait for.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    private static void awaitTermination(ExecutorService executor) throws InterruptedException {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keep waiting, large objects on slow disks can take a while
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the jobs one after the other on the calling thread.
+     */
+    final class Sequential implements UnpackEngine {
+        @Override
+        public void run(Collection<? extends Runnable> jobs) {
+            jobs.forEach(Runnable::run);
+        }
+
+        @Override
+        public int parallelism() {
+            return 1;
+        }
+    }
+
+    /**
+     * Runs the jobs on a fixed amount of worker threads. The queue of pending jobs is bounded: when it is full,
+     * the calling thread runs the job itself instead of piling up more work.
+     */
+    final class Pooled implements UnpackEngine {
+        /**
+         * How many pending jobs each worker can have in the queue.
+         */
+        private static final int QUEUED_JOBS_PER_THREAD = 64;
+
+        private final int threads;
+
+        Pooled(int threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public void run(Collection<? extends Runnable> jobs) throws InterruptedException {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * QUEUED_JOBS_PER_THREAD), new WorkerFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+            try {
+                jobs.forEach(executor::execute);
+            } finally {
+                executor.shutdown();
+            }
+            awaitTermination(executor);
+        }
+
+        @Override
+        public int parallelism() {
+            return threads;
+        }
+    }
+
+    /**
+     * Runs each job on its own virtual thread. Since the jobs mostly wait on the file system, the amount of jobs
+     * running at once is capped by a semaphore rather than by a thread count, so we don't run out of file descriptors.<br>
+     * Virtual threads only exist since Java 21 while this project targets Java 17, which is why the executor is obtained
+     * through reflection at runtime.
+     */
+    final class Virtual implements UnpackEngine {
+        private final ExecutorService executor;
+        private final int maxInFlight;
+
+        Virtual(ExecutorService executor, int maxInFlight) {
+            this.executor = executor;
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public void run(Collection<? extends Runnable> jobs) throws InterruptedException {
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            try {
+                for (Runnable job : jobs) {
+                    inFlight.acquire();
+                    executor.execute(() -> {
+                        try {
+                            job.run();
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } finally {
+                executor.shutdown();
+            }
+            awaitTermination(executor);
+        }
+
+        @Override
+        public int parallelism() {
+            return maxInFlight;
+        }
+
+        /**
+         * @return A new virtual-thread-per-task executor, or {@code null} if the running Java version doesn't support virtual threads.
+         */
+        static ExecutorService newVirtualThreadExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            } catch (InvocationTargetException e) {
+                // Java 19 and 20 have them as a preview feature, which throws if previews are not enabled
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Creates the daemon worker threads of the pooled engine.
+     */
+    final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Asset Unpacker Worker #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import jdk.jfr.*;
+
+import java.nio.file.Path;
+
+/**
+ * The Java Flight Recorder events of an unpack, to find out which phase or which files made an unpack slow with
+ * {@code jfr print --events io.github.lgatodu47.asset_unpacker.*} or JDK Mission Control.<br>
+ * The events are only created while a recording is running: the first event of a JVM without a recording would
+ * initialize the recorder, which takes longer than unpacking a small index. The events have no stack trace, as they
+ * would all point to this class.
+ */
+final class UnpackEvents {
+    private static final String CATEGORY = "Minecraft Asset Unpacker";
+
+    private UnpackEvents() {
+    }
+
+    /**
+     * @return If the events should be created, which is when a recording was started.
+     */
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Starts the event of an asset index file.
+     *
+     * @param file The asset index file.
+     * @return The started event, to pass to {@link #end(IndexReadEvent, int, long, long)}, or {@code null} if no
+     * recording is running.
+     */
+    static IndexReadEvent beginIndexRead(Path file) {
+        if (!recording()) {
+            return null;
+        }
+        IndexReadEvent event = new IndexReadEvent();
+        event.file = file.getFileName().toString();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Starts the event of a phase.
+     *
+     * @param phase The phase.
+     * @param detail What the phase is working on, such as the output directory.
+     * @return The started event, to pass to {@link #end(Event)}, or {@code null} if no recording is running.
+     */
+    static PhaseEvent beginPhase(UnpackPhase phase, String detail) {
+        if (!recording()) {
+            return null;
+        }
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase.name();
+        event.detail = detail;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Starts the event of an asset.
+     *
+     * @param target The asset being unpacked.
+     * @return The started event, to pass to {@link #end(AssetEvent, UnpackOutcome, Exception)}, or {@code null} if no
+     * recording is running.
+     */
+    static AssetEvent beginAsset(UnpackTarget target) {
+        if (!recording()) {
+            return null;
+        }
+        AssetEvent event = new AssetEvent();
+        event.assetsIndex = target.assetsIndex();
+        event.path = target.asset().path();
+        event.hash = target.asset().hash();
+        event.size = target.asset().size();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits an event started by one of the {@code begin} methods.
+     *
+     * @param event The event, or {@code null} if no recording was running.
+     */
+    static void end(Event event) {
+        if (event != null) {
+            event.commit();
+        }
+    }
+
+    /**
+     * Commits the event of an asset index file.
+     *
+     * @param event The event, or {@code null} if no recording was running.
+     * @param assets The amount of assets read from the file.
+     * @param readNanos The time spent reading the file, in nanoseconds.
+     * @param parseNanos The time spent parsing the file, in nanoseconds.
+     */
+    static void end(IndexReadEvent event, int assets, long readNanos, long parseNanos) {
+        if (event != null) {
+            event.assets = assets;
+            event.readTime = readNanos;
+            event.parseTime = parseNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Commits the event of an asset.
+     *
+     * @param event The event, or {@code null} if no recording was running.
+     * @param outcome The outcome of the asset, or {@code null} if it failed.
+     * @param failure The reason of the failure, or {@code null} if it was unpacked.
+     */
+    static void end(AssetEvent event, UnpackOutcome outcome, Exception failure) {
+        if (event != null) {
+            event.outcome = outcome != null ? outcome.name() : "FAILED";
+            event.failure = failure != null ? failure.toString() : null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits a {@link ThroughputEvent} every second while the assets are copied.
+     *
+     * @param stats The stats of the unpack.
+     * @param scheduler The scheduler of the unpack jobs.
+     * @return The hook emitting the events, to pass to {@link #stopThroughput(Runnable)}, or {@code null} if no
+     * recording is running.
+     */
+    static Runnable startThroughput(UnpackStats stats, UnpackScheduler scheduler) {
+        if (!recording()) {
+            return null;
+        }
+        Runnable hook = new Runnable() {
+            private long lastTime = System.nanoTime();
+            private int lastFiles;
+            private long lastBytes;
+
+            @Override
+            public void run() {
+                long now = System.nanoTime();
+                int files = stats.unpackedCount();
+                long bytes = stats.bytesCopied();
+                double seconds = Math.max(1, now - lastTime) / 1e9;
+                ThroughputEvent event = new ThroughputEvent();
+                event.unpackedFiles = files;
+                event.bytesCopied = bytes;
+                event.filesPerSecond = (files - lastFiles) / seconds;
+                event.bytesPerSecond = (long) ((bytes - lastBytes) / seconds);
+                event.queuedJobs = scheduler.queued();
+                event.commit();
+                lastTime = now;
+                lastFiles = files;
+                lastBytes = bytes;
+            }
+        };
+        FlightRecorder.addPeriodicEvent(ThroughputEvent.class, hook);
+        return hook;
+    }
+
+    /**
+     * Stops emitting the throughput events.
+     *
+     * @param hook The hook returned by {@link #startThroughput(UnpackStats, UnpackScheduler)}, or {@code null}.
+     */
+    static void stopThroughput(Runnable hook) {
+        if (hook != null) {
+            FlightRecorder.removePeriodicEvent(hook);
+        }
+    }
+
+    @Name("io.github.lgatodu47.asset_unpacker.IndexRead")
+    @Label("Index Read")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Description("Reading and parsing an asset index file. Parsing is interleaved with reading, so both are timed within the event.")
+    static final class IndexReadEvent extends Event {
+        @Label("Index File")
+        String file;
+        @Label("Assets")
+        int assets;
+        @Label("Read Time")
+        @Timespan
+        long readTime;
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+    }
+
+    @Name("io.github.lgatodu47.asset_unpacker.Phase")
+    @Label("Unpack Phase")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Description("A phase of an unpack, see UnpackPhase. A phase may be split in several events.")
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("Detail")
+        String detail;
+    }
+
+    @Name("io.github.lgatodu47.asset_unpacker.Asset")
+    @Label("Asset Unpack")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Description("The unpack of a single asset, from the object file to its output.")
+    static final class AssetEvent extends Event {
+        @Label("Asset Index")
+        String assetsIndex;
+        @Label("Path")
+        String path;
+        @Label("Hash")
+        String hash;
+        @Label("Size")
+        @DataAmount
+        long size;
+        @Label("Outcome")
+        String outcome;
+        @Label("Failure")
+        String failure;
+    }
+
+    @Name("io.github.lgatodu47.asset_unpacker.Throughput")
+    @Label("Unpack Throughput")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Description("The progress of the copy phase, emitted periodically while it runs.")
+    @Period("1 s")
+    static final class ThroughputEvent extends Event {
+        @Label("Unpacked Files")
+        int unpackedFiles;
+        @Label("Bytes Copied")
+        @DataAmount
+        long bytesCopied;
+        @Label("Files per Second")
+        double filesPerSecond;
+        @Label("Bytes per Second")
+        @DataAmount
+        @Frequency
+        long bytesPerSecond;
+        @Label("Queued Jobs")
+        @Description("The unpack jobs or batches of small jobs that no thread has started yet.")
+        int queuedJobs;
+    }
+}
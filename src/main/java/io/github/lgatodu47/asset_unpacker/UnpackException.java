@@ -0,0 +1,15 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * An exception thrown when an unpack can't be done at all, for example when the asset index is missing.
+ * Failures of single assets don't stop the unpack, they are reported in the {@link UnpackResult} instead.
+ */
+public class UnpackException extends RuntimeException {
+    public UnpackException(String message) {
+        super(message);
+    }
+
+    public UnpackException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only list of the assets unpacked to an output directory, which lets an interrupted unpack be resumed
+ * instead of started over.<br>
+ * Each line holds the version of the index, the hash and the path of an asset, and is appended once its output was
+ * renamed to its final name. The lines are buffered and written in blocks, and the file is synced to the disk at most
+ * every {@link #SYNC_INTERVAL_MILLIS} milliseconds: a killed process loses the content of the buffer, and a crash of the
+ * system loses at most the entries since the last sync. Either way the lost assets are simply unpacked again.<br>
+ * The outputs themselves aren't synced, as that would cost a sync per file, so the content of the last outputs may not
+ * have reached the disk when the journal did. The last {@link #VERIFIED_TAIL} entries are hashed again when resuming.
+ */
+final class UnpackJournal implements AutoCloseable {
+    /**
+     * The name of the journal file, in the output directory.
+     */
+    static final String FILE_NAME = ".unpack-journal";
+    /**
+     * The amount of entries, at the end of the journal, whose output is verified when resuming.
+     */
+    static final int VERIFIED_TAIL = 256;
+    static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final String HEADER = "MinecraftAssetUnpacker journal 1\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * The hashes of the assets found in the journal when it was opened, by index version and path.
+     */
+    private final Map<String, String> entries;
+    private final Set<String> tail;
+    private long lastSync = System.nanoTime();
+
+    private UnpackJournal(FileChannel channel, Map<String, String> entries, Set<String> tail) {
+        this.channel = channel;
+        this.entries = entries;
+        this.tail = tail;
+    }
+
+    /**
+     * Opens the journal of an output directory.
+     *
+     * @param outputDir The output directory.
+     * @param resume If the existing entries should be kept, otherwise the journal starts empty.
+     * @return The journal.
+     * @throws IOException If an I/O error occurs.
+     */
+    static UnpackJournal open(Path outputDir, boolean resume) throws IOException {
+        Path file = outputDir.resolve(FILE_NAME);
+        Map<String, String> entries = new HashMap<>();
+        Set<String> tail = new HashSet<>();
+        long length = -1;
+        if (resume) {
+            length = read(file, entries, tail);
+            if (length == -1) {
+                System.out.println("No journal was found in the output directory, unpacking every asset again.");
+            }
+        }
+        boolean valid = length != -1;
+        FileChannel channel = valid ? FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (valid) {
+            // The new entries would otherwise be appended to the cut line
+            channel.truncate(length);
+        }
+        UnpackJournal journal = new UnpackJournal(channel, entries, tail);
+        if (!valid) {
+            journal.buffer.put(HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        return journal;
+    }
+
+    /**
+     * Reads the entries of a journal file. A last line missing its line break was cut by the interruption and is ignored.
+     *
+     * @return The length in bytes of the complete lines of the file, or -1 if the file doesn't exist or isn't a journal.
+     */
+    private static long read(Path file, Map<String, String> entries, Set<String> tail) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        if (!content.startsWith(HEADER)) {
+            return -1;
+        }
+        Deque<String> last = new ArrayDeque<>(VERIFIED_TAIL);
+        int start = HEADER.length();
+        int end;
+        while ((end = content.indexOf('\n', start)) != -1) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            int first = line.indexOf('\t');
+            int second = first == -1 ? -1 : line.indexOf('\t', first + 1);
+            if (second == -1) {
+                continue;
+            }
+            String key = line.substring(0, first).concat("\t").concat(line.substring(second + 1));
+            entries.put(key, line.substring(first + 1, second));
+            if (last.size() == VERIFIED_TAIL) {
+                last.removeFirst();
+            }
+            last.addLast(key);
+        }
+        tail.addAll(last);
+        return length;
+    }
+
+    /**
+     * @param assetsIndex The version of the index of the asset.
+     * @param asset The asset.
+     * @return If the journal was opened with an entry for the asset, with the same hash.
+     */
+    Status status(String assetsIndex, Asset asset) {
+        String key = assetsIndex.concat("\t").concat(asset.path());
+        if (!asset.hash().equals(entries.get(key))) {
+            return Status.MISSING;
+        }
+        return tail.contains(key) ? Status.RECENT : Status.COMPLETED;
+    }
+
+    /**
+     * Appends an unpacked asset to the journal. This method may be called from several threads at once.
+     *
+     * @param assetsIndex The version of the index of the asset.
+     * @param asset The asset, whose output was written under its final name.
+     * @throws IOException If an I/O error occurs.
+     */
+    void completed(String assetsIndex, Asset asset) throws IOException {
+        byte[] line = (assetsIndex + '\t' + asset.hash() + '\t' + asset.path() + '\n').getBytes(StandardCharsets.UTF_8);
+        boolean sync;
+        synchronized (this) {
+            if (buffer.remaining() < line.length) {
+                flush();
+            }
+            if (line.length > buffer.capacity()) {
+                write(ByteBuffer.wrap(line));
+            } else {
+                buffer.put(line);
+            }
+            long now = System.nanoTime();
+            sync = now - lastSync >= TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS);
+            if (sync) {
+                flush();
+                lastSync = now;
+            }
+        }
+        if (sync) {
+            // Outside of the lock, so that the other threads keep appending while the disk catches up
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Writes and syncs the remaining entries, then closes the file.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try (channel) {
+            flush();
+            channel.force(false);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * What the journal knows about an asset.
+     */
+    enum Status {
+        /**
+         * The asset isn't in the journal, or it had another hash.
+         */
+        MISSING,
+        /**
+         * The asset was among the last ones unpacked, its output must be verified.
+         */
+        RECENT,
+        /**
+         * The asset was unpacked.
+         */
+        COMPLETED
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * Receives the progress of an unpack. All methods do nothing by default.<br>
+ * <strong>The per-asset methods can be called from several threads at once</strong>, depending on the
+ * {@linkplain AssetUnpackerConfig#threads() threads} of the config.
+ *
+ * @see MinecraftAssetUnpacker#start(AssetUnpackerConfig, UnpackListener)
+ */
+public interface UnpackListener {
+    /**
+     * Called once the asset index is read and the output directory is ready, right before unpacking the assets.
+     *
+     * @param config The config of the unpack.
+     * @param assetCount The amount of assets to unpack.
+     */
+    default void started(AssetUnpackerConfig config, int assetCount) {
+    }
+
+    /**
+     * Called when an asset was unpacked.
+     *
+     * @param asset The unpacked asset.
+     * @param outcome How the asset was unpacked.
+     */
+    default void assetUnpacked(Asset asset, UnpackOutcome outcome) {
+    }
+
+    /**
+     * Called when an asset couldn't be unpacked.
+     *
+     * @param asset The asset that couldn't be unpacked.
+     * @param cause The reason why it couldn't be unpacked.
+     */
+    default void assetFailed(Asset asset, Exception cause) {
+    }
+
+    /**
+     * Called at the end of the unpack.
+     *
+     * @param result The result of the unpack.
+     */
+    default void finished(UnpackResult result) {
+    }
+}
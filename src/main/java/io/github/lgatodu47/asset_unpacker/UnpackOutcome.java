@@ -0,0 +1,19 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * What happened to an asset that was successfully unpacked.
+ */
+public enum UnpackOutcome {
+    /**
+     * The object file was copied to the output.
+     */
+    COPIED,
+    /**
+     * The output was created as a link to the object file, see {@link OutputStrategy}.
+     */
+    LINKED,
+    /**
+     * The existing output already matched the asset and was kept, see {@link IncrementalMode}.
+     */
+    UP_TO_DATE
+}
@@ -0,0 +1,28 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * The phases of an unpack, which are timed separately in the {@link UnpackResult}.
+ */
+public enum UnpackPhase {
+    /**
+     * Reading the asset index files from the disk. The indexes are read concurrently, so this is the sum of the time
+     * spent on each of them.
+     */
+    INDEX_READ,
+    /**
+     * Parsing the asset indexes, which is interleaved with reading them. Also summed over the indexes.
+     */
+    PARSE,
+    /**
+     * Emptying the output directory, or deleting the files that are not part of the index in incremental mode.
+     */
+    CLEAN,
+    /**
+     * Creating the directories of the output, which is done once for all the assets before unpacking them.
+     */
+    DIRECTORIES,
+    /**
+     * Unpacking the assets.
+     */
+    COPY
+}
@@ -0,0 +1,101 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result and metrics of an unpack.
+ *
+ * @param assetCount The amount of assets in the indexes.
+ * @param uniqueObjects The amount of different objects the assets refer to. Each object is read once, even if it is
+ *                      shared by several assets or several indexes.
+ * @param copied The amount of assets that were copied.
+ * @param linked The amount of assets that were linked, see {@link OutputStrategy}.
+ * @param upToDate The amount of assets whose existing output was kept, see {@link IncrementalMode}.
+ * @param deletedFiles The amount of files of the output directory deleted because they are not part of the index anymore.
+ * @param directoriesCreated The amount of directories created in the output directory.
+ * @param bytesCopied The amount of bytes that were copied. Linked and up-to-date assets don't count.
+ * @param deduplicated The amount of assets created from the first output of their object rather than from the object
+ *                     file, see {@link DedupMode}.
+ * @param dedupBytes The size of the deduplicated assets: bytes that weren't read again from the object files, and that
+ *                   weren't written again either when the assets were linked.
+ * @param phases The time spent in each phase of the unpack.
+ * @param copyMetrics The files copied in each size bucket. Buckets without any copy are left out.
+ * @param criticalPath The longest job of the unpack, see {@link CriticalPath}.
+ * @param duration The total duration of the unpack.
+ * @param failures The assets that couldn't be unpacked.
+ */
+public record UnpackResult(int assetCount, int uniqueObjects, int copied, int linked, int upToDate, int deletedFiles, int directoriesCreated, long bytesCopied,
+                           int deduplicated, long dedupBytes, Map<UnpackPhase, Duration> phases, Map<SizeBucket, CopyMetrics> copyMetrics, CriticalPath criticalPath, Duration duration, List<Failure> failures) {
+    public UnpackResult {
+        phases = Map.copyOf(phases);
+        copyMetrics = Map.copyOf(copyMetrics);
+        failures = List.copyOf(failures);
+    }
+
+    /**
+     * @return The amount of assets that are unpacked in the output directory.
+     */
+    public int unpacked() {
+        return copied + linked + upToDate;
+    }
+
+    /**
+     * @return The amount of assets that couldn't be unpacked.
+     */
+    public int failed() {
+        return failures.size();
+    }
+
+    /**
+     * @param phase A phase of the unpack.
+     * @return The time spent in the given phase.
+     */
+    public Duration phase(UnpackPhase phase) {
+        return phases.getOrDefault(phase, Duration.ZERO);
+    }
+
+    /**
+     * @return The amount of assets unpacked per second during the {@linkplain UnpackPhase#COPY copy phase}.
+     */
+    public double filesPerSecond() {
+        return perSecond(unpacked());
+    }
+
+    /**
+     * @return The amount of bytes copied per second during the {@linkplain UnpackPhase#COPY copy phase}.
+     */
+    public double bytesPerSecond() {
+        return perSecond(bytesCopied);
+    }
+
+    private double perSecond(long amount) {
+        long nanos = phase(UnpackPhase.COPY).toNanos();
+        return nanos == 0 ? 0 : amount * 1e9 / nanos;
+    }
+
+    /**
+     * The jobs are started largest first, so a parallel unpack can't take less time than its longest job, and shouldn't
+     * take much more time once the last job started.
+     *
+     * @param job A description of the longest job, which is an asset or a batch of small assets.
+     * @param duration The duration of the longest job.
+     * @param tail The time between the start of the last job and the end of the unpack, during which some threads had nothing left to do.
+     */
+    public record CriticalPath(String job, Duration duration, Duration tail) {
+        /**
+         * The critical path of an unpack without any job.
+         */
+        public static final CriticalPath NONE = new CriticalPath("", Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * An asset that couldn't be unpacked.
+     *
+     * @param asset The asset.
+     * @param cause The reason why it couldn't be unpacked.
+     */
+    public record Failure(Asset asset, Exception cause) {
+    }
+}
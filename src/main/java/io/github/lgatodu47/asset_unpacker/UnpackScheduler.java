@@ -0,0 +1,141 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Orders the unpack jobs so that a parallel unpack doesn't end with a single thread copying a large file while the
+ * others are idle.<br>
+ * Jobs are started largest first, using the sizes given by the index: the music tracks are copied while there are
+ * still plenty of small files left to balance the threads. The small files are then packed into batches, so that a
+ * thread takes several of them at once instead of going through the queue for each one. There are always enough
+ * batches to keep every thread busy until the end.<br>
+ * The engines run the jobs in the order they are given, so submitting them in that order is enough.
+ */
+final class UnpackScheduler {
+    /**
+     * Jobs costing at least this many bytes are run on their own.
+     */
+    static final long BATCH_BYTES = 1024 * 1024;
+    /**
+     * The maximum amount of jobs in a batch.
+     */
+    static final int MAX_BATCH_SIZE = 64;
+
+    private final int parallelism;
+    private final List<Job> jobs = new ArrayList<>();
+    private final AtomicReference<Longest> longest = new AtomicReference<>(new Longest("", 0));
+    private final AtomicLong lastStart = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * @param parallelism The amount of jobs run at the same time.
+     */
+    UnpackScheduler(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Adds a job.
+     *
+     * @param cost The amount of bytes the job writes.
+     * @param name A name describing the job in the report.
+     * @param task The job itself.
+     */
+    void add(long cost, String name, Runnable task) {
+        jobs.add(new Job(cost, name, task));
+    }
+
+    /**
+     * @return The jobs, largest first and with the small ones batched together, in the order they should be started.
+     */
+    List<Runnable> schedule() {
+        jobs.sort(Comparator.comparingLong(Job::cost).reversed());
+        int small = 0;
+        for (Job job : jobs) {
+            if (job.cost() < BATCH_BYTES) {
+                small++;
+            }
+        }
+        // At least eight batches per thread, so that the threads finish at about the same time
+        int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, small / (parallelism * 8)));
+
+        List<Runnable> scheduled = new ArrayList<>();
+        List<Job> batch = new ArrayList<>(batchSize);
+        long batchCost = 0;
+        for (Job job : jobs) {
+            if (job.cost() >= BATCH_BYTES) {
+                scheduled.add(timed(job.name(), List.of(job)));
+                continue;
+            }
+            batch.add(job);
+            batchCost += job.cost();
+            if (batch.size() == batchSize || batchCost >= BATCH_BYTES) {
+                scheduled.add(timed(batch.get(0).name(), batch));
+                batch = new ArrayList<>(batchSize);
+                batchCost = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            scheduled.add(timed(batch.get(0).name(), batch));
+        }
+        jobs.clear();
+        queued.set(scheduled.size());
+        return scheduled;
+    }
+
+    /**
+     * @return The longest scheduled job or batch, which is the least time the unpack could take with unlimited threads.
+     */
+    Duration criticalPath() {
+        return Duration.ofNanos(longest.get().nanos());
+    }
+
+    /**
+     * @return The name of the {@linkplain #criticalPath() longest} job or batch.
+     */
+    String criticalPathName() {
+        return longest.get().name();
+    }
+
+    /**
+     * @return The amount of scheduled jobs and batches that weren't started yet.
+     */
+    int queued() {
+        return queued.get();
+    }
+
+    /**
+     * @param end The time at which the last job finished, from {@link System#nanoTime()}.
+     * @return The time between the start of the last job and the end, during which some threads had nothing left to do.
+     */
+    Duration tail(long end) {
+        long start = lastStart.get();
+        return start == 0 ? Duration.ZERO : Duration.ofNanos(Math.max(0, end - start));
+    }
+
+    private Runnable timed(String name, List<Job> batch) {
+        return () -> {
+            long start = System.nanoTime();
+            lastStart.accumulateAndGet(start, Math::max);
+            queued.decrementAndGet();
+            for (Job job : batch) {
+                job.task().run();
+            }
+            long nanos = System.nanoTime() - start;
+            Longest candidate = new Longest(batch.size() == 1 ? name : name + " and " + (batch.size() - 1) + " others", nanos);
+            longest.accumulateAndGet(candidate, (a, b) -> a.nanos() >= b.nanos() ? a : b);
+        };
+    }
+
+    private record Job(long cost, String name, Runnable task) {
+    }
+
+    private record Longest(String name, long nanos) {
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of an unpack while it runs, to build its {@link UnpackResult}.
+ * The per-asset methods can be called from several threads at once.
+ */
+final class UnpackStats {
+    private final Map<UnpackOutcome, AtomicInteger> outcomes = new EnumMap<>(UnpackOutcome.class);
+    private final LongAdder bytesCopied = new LongAdder();
+    private final Queue<UnpackResult.Failure> failures = new ConcurrentLinkedQueue<>();
+    private final Map<UnpackPhase, Long> phaseNanos = new EnumMap<>(UnpackPhase.class);
+    private final long startTime = System.nanoTime();
+    private int deletedFiles;
+    private int directoriesCreated;
+    private int uniqueObjects;
+    private int deduplicated;
+    private long dedupBytes;
+    private Map<SizeBucket, CopyMetrics> copyMetrics = Map.of();
+    private UnpackResult.CriticalPath criticalPath = UnpackResult.CriticalPath.NONE;
+
+    UnpackStats() {
+        for (UnpackOutcome outcome : UnpackOutcome.values()) {
+            outcomes.put(outcome, new AtomicInteger());
+        }
+    }
+
+    void unpacked(Asset asset, UnpackOutcome outcome) {
+        outcomes.get(outcome).incrementAndGet();
+        if (outcome == UnpackOutcome.COPIED) {
+            bytesCopied.add(asset.size());
+        }
+    }
+
+    void failed(Asset asset, Exception cause) {
+        failures.add(new UnpackResult.Failure(asset, cause));
+    }
+
+    /**
+     * @return The amount of assets unpacked so far, whatever their outcome.
+     */
+    int unpackedCount() {
+        int count = 0;
+        for (AtomicInteger outcome : outcomes.values()) {
+            count += outcome.get();
+        }
+        return count;
+    }
+
+    long bytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    void deleted(int files) {
+        deletedFiles += files;
+    }
+
+    void directoriesCreated(int directories) {
+        directoriesCreated += directories;
+    }
+
+    void uniqueObjects(int objects) {
+        uniqueObjects = objects;
+    }
+
+    void deduplicated(int files, long bytes) {
+        deduplicated += files;
+        dedupBytes += bytes;
+    }
+
+    void copyMetrics(Map<SizeBucket, CopyMetrics> metrics) {
+        copyMetrics = metrics;
+    }
+
+    void criticalPath(UnpackResult.CriticalPath path) {
+        criticalPath = path;
+    }
+
+    /**
+     * Adds time to a phase. The time of a phase can be split in several parts.
+     *
+     * @param phase The phase.
+     * @param nanos The time spent in the phase, in nanoseconds.
+     */
+    synchronized void phase(UnpackPhase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    synchronized UnpackResult toResult(int assetCount) {
+        Map<UnpackPhase, Duration> phases = new EnumMap<>(UnpackPhase.class);
+        phaseNanos.forEach((phase, nanos) -> phases.put(phase, Duration.ofNanos(nanos)));
+        return new UnpackResult(assetCount, uniqueObjects, outcomes.get(UnpackOutcome.COPIED).get(), outcomes.get(UnpackOutcome.LINKED).get(),
+                outcomes.get(UnpackOutcome.UP_TO_DATE).get(), deletedFiles, directoriesCreated, bytesCopied.sum(), deduplicated, dedupBytes, phases,
+                copyMetrics, criticalPath, Duration.ofNanos(System.nanoTime() - startTime), failures.stream().toList());
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.lgatodu47.asset_unpacker;
+
+/**
+ * An asset to unpack, along with the asset index it comes from.
+ *
+ * @param assetsIndex The version of the asset index containing the asset.
+ * @param asset The asset.
+ */
+record UnpackTarget(String assetsIndex, Asset asset) {
+}
@@ -0,0 +1,355 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Unpacks the assets directly into a ZIP (or JAR) archive, without writing them to the disk first.<br>
+ * {@link java.util.zip.ZipOutputStream} compresses the entries on the thread writing them, so this class writes the
+ * archive itself: each asset is read and compressed by the thread unpacking it, and the finished entries are appended
+ * to the archive one at a time. Since the size and CRC of an entry are known before it is appended, the local headers
+ * contain them and the archive doesn't need data descriptors. Archives bigger than 4 GiB or with more than 65535
+ * entries use the ZIP64 extensions.<br>
+ * Sounds and textures (.ogg and .png) are already compressed and are stored as is, they are streamed from the object
+ * file to the archive. The other assets are small and compressed in memory.
+ */
+final class ZipSink implements OutputSink {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    /**
+     * The entry names are encoded in UTF-8.
+     */
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRIES_LIMIT = 0xFFFF;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AssetUnpackerConfig config;
+    private final Path file;
+    private final int dosTime;
+    private final int dosDate;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private FileChannel channel;
+    private long position;
+    private long entries;
+
+    ZipSink(AssetUnpackerConfig config) {
+        this.config = config;
+        this.file = config.outputDir().toAbsolutePath();
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    @Override
+    public void prepare(UnpackStats stats) {
+        long phaseStart = System.nanoTime();
+        UnpackEvents.PhaseEvent event = UnpackEvents.beginPhase(UnpackPhase.CLEAN, file.toString());
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UnpackException("Failed to create the output archive.", e);
+        }
+        stats.phase(UnpackPhase.CLEAN, System.nanoTime() - phaseStart);
+        UnpackEvents.end(event);
+    }
+
+    /**
+     * The object is read and compressed once, and appended to the archive once per asset.
+     */
+    @Override
+    public void write(Path objectPath, List<UnpackTarget> targets, UnpackListener listener) {
+        Asset first = targets.get(0).asset();
+        // The event of the first asset includes reading and compressing the object
+        UnpackEvents.AssetEvent event = UnpackEvents.beginAsset(targets.get(0));
+        Entry entry;
+        try {
+            entry = isCompressed(first.path()) ? readStored(objectPath, first) : readDeflated(objectPath, first);
+        } catch (IOException e) {
+            for (UnpackTarget target : targets) {
+                UnpackEvents.end(target == targets.get(0) ? event : UnpackEvents.beginAsset(target), null, e);
+                listener.assetFailed(target.asset(), e);
+            }
+            return;
+        }
+        for (UnpackTarget target : targets) {
+            String name = config.multipleIndexes() ? target.assetsIndex() + "/" + target.asset().path() : target.asset().path();
+            if (target != targets.get(0)) {
+                event = UnpackEvents.beginAsset(target);
+            }
+            try {
+                append(name, entry);
+                UnpackEvents.end(event, UnpackOutcome.COPIED, null);
+                listener.assetUnpacked(target.asset(), UnpackOutcome.COPIED);
+            } catch (IOException e) {
+                UnpackEvents.end(event, null, e);
+                listener.assetFailed(target.asset(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the central directory, which makes the archive complete.
+     */
+    @Override
+    public void finish(UnpackStats stats) {
+        long phaseStart = System.nanoTime();
+        UnpackEvents.PhaseEvent event = UnpackEvents.beginPhase(UnpackPhase.COPY, "central directory of " + file);
+        try {
+            writeCentralDirectory();
+        } catch (IOException e) {
+            throw new UnpackException("Failed to write the central directory of the output archive.", e);
+        }
+        stats.phase(UnpackPhase.COPY, System.nanoTime() - phaseStart);
+        UnpackEvents.end(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @param path The path of an asset.
+     * @return If the asset is a format that is already compressed, which deflate wouldn't shrink.
+     */
+    private static boolean isCompressed(String path) {
+        String lowerCase = path.toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".ogg") || lowerCase.endsWith(".png");
+    }
+
+    /**
+     * Computes the CRC of an object that will be streamed to the archive as is.
+     */
+    private Entry readStored(Path objectPath, Asset asset) throws IOException {
+        CRC32 crc = new CRC32();
+        MessageDigest digest = config.verify() ? HashUtils.newSha1() : null;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long size = 0;
+        try (FileChannel in = FileChannel.open(objectPath, StandardOpenOption.READ)) {
+            int read;
+            while ((read = in.read(buffer.clear())) != -1) {
+                crc.update(buffer.array(), 0, read);
+                if (digest != null) {
+                    digest.update(buffer.array(), 0, read);
+                }
+                size += read;
+            }
+        }
+        if (digest != null) {
+            HashUtils.check(asset, digest);
+        }
+        return new Entry(STORED, crc.getValue(), size, size, null, objectPath);
+    }
+
+    /**
+     * Compresses an object in memory. If deflate doesn't make it smaller, it is stored instead.
+     */
+    private Entry readDeflated(Path objectPath, Asset asset) throws IOException {
+        byte[] content = Files.readAllBytes(objectPath);
+        if (config.verify()) {
+            MessageDigest digest = HashUtils.newSha1();
+            digest.update(content);
+            HashUtils.check(asset, digest);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] compressed = new byte[Math.max(64, content.length / 2)];
+        int length = 0;
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            while (!deflater.finished() && length < content.length) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+        } finally {
+            deflater.end();
+        }
+        if (length >= content.length) {
+            return new Entry(STORED, crc.getValue(), content.length, content.length, content, null);
+        }
+        return new Entry(DEFLATED, crc.getValue(), content.length, length, compressed, null);
+    }
+
+    /**
+     * Appends an entry to the archive. This is the only place where the archive is written while unpacking,
+     * and only one thread at a time can do it.
+     */
+    private synchronized void append(String name, Entry entry) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = entry.size() >= ZIP64_LIMIT || entry.compressedSize() >= ZIP64_LIMIT;
+        long offset = position;
+
+        ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length + (zip64 ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOCAL_HEADER)
+                .putShort((short) (zip64 ? ZIP64_VERSION : VERSION))
+                .putShort((short) UTF8_FLAG)
+                .putShort((short) entry.method())
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                .putInt((int) entry.crc())
+                .putInt(zip64 ? -1 : (int) entry.compressedSize())
+                .putInt(zip64 ? -1 : (int) entry.size())
+                .putShort((short) nameBytes.length)
+                .putShort((short) (zip64 ? 20 : 0))
+                .put(nameBytes);
+        if (zip64) {
+            header.putShort((short) 1).putShort((short) 16).putLong(entry.size()).putLong(entry.compressedSize());
+        }
+        try {
+            writeFully(header.flip());
+            if (entry.data() != null) {
+                writeFully(ByteBuffer.wrap(entry.data(), 0, (int) entry.compressedSize()));
+            } else {
+                transferFully(entry.file(), entry.size());
+            }
+        } catch (IOException e) {
+            // Rewind so that the next entry overwrites this incomplete one
+            channel.position(offset);
+            position = offset;
+            throw e;
+        }
+        addCentralHeader(nameBytes, entry, offset);
+    }
+
+    private void addCentralHeader(byte[] nameBytes, Entry entry, long offset) {
+        boolean zip64Sizes = entry.size() >= ZIP64_LIMIT || entry.compressedSize() >= ZIP64_LIMIT;
+        boolean zip64Offset = offset >= ZIP64_LIMIT;
+        int extraLength = (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+        if (extraLength > 0) {
+            extraLength += 4;
+        }
+        ByteBuffer header = ByteBuffer.allocate(46 + nameBytes.length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+        short version = (short) (extraLength > 0 ? ZIP64_VERSION : VERSION);
+        header.putInt(CENTRAL_HEADER)
+                .putShort(version)
+                .putShort(version)
+                .putShort((short) UTF8_FLAG)
+                .putShort((short) entry.method())
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                .putInt((int) entry.crc())
+                .putInt(zip64Sizes ? -1 : (int) entry.compressedSize())
+                .putInt(zip64Sizes ? -1 : (int) entry.size())
+                .putShort((short) nameBytes.length)
+                .putShort((short) extraLength)
+                // Comment length, disk number, internal and external attributes
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt(zip64Offset ? -1 : (int) offset)
+                .put(nameBytes);
+        if (extraLength > 0) {
+            header.putShort((short) 1).putShort((short) (extraLength - 4));
+            if (zip64Sizes) {
+                header.putLong(entry.size()).putLong(entry.compressedSize());
+            }
+            if (zip64Offset) {
+                header.putLong(offset);
+            }
+        }
+        centralDirectory.write(header.array(), 0, header.position());
+        entries++;
+    }
+
+    private synchronized void writeCentralDirectory() throws IOException {
+        long centralOffset = position;
+        long centralSize = centralDirectory.size();
+        writeFully(ByteBuffer.wrap(centralDirectory.toByteArray()));
+
+        boolean zip64 = entries >= ZIP64_ENTRIES_LIMIT || centralOffset >= ZIP64_LIMIT || centralSize >= ZIP64_LIMIT;
+        ByteBuffer end = ByteBuffer.allocate(56 + 20 + 22).order(ByteOrder.LITTLE_ENDIAN);
+        if (zip64) {
+            long zip64EndOffset = position;
+            end.putInt(ZIP64_END)
+                    .putLong(44)
+                    .putShort((short) ZIP64_VERSION)
+                    .putShort((short) ZIP64_VERSION)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entries)
+                    .putLong(entries)
+                    .putLong(centralSize)
+                    .putLong(centralOffset);
+            end.putInt(ZIP64_LOCATOR)
+                    .putInt(0)
+                    .putLong(zip64EndOffset)
+                    .putInt(1);
+        }
+        short entryCount = (short) Math.min(entries, ZIP64_ENTRIES_LIMIT);
+        end.putInt(END)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort(entryCount)
+                .putShort(entryCount)
+                .putInt((int) Math.min(centralSize, ZIP64_LIMIT))
+                .putInt((int) Math.min(centralOffset, ZIP64_LIMIT))
+                .putShort((short) 0);
+        writeFully(end.flip());
+        // An entry that failed at the end of the archive may have left bytes after the current position
+        channel.truncate(position);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private void transferFully(Path source, long size) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < size) {
+                long count = in.transferTo(transferred, size - transferred, channel);
+                if (count <= 0) {
+                    throw new IOException("Object file '" + source + "' changed while it was unpacked.");
+                }
+                transferred += count;
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * An entry ready to be appended to the archive, once per asset using its object.
+     *
+     * @param method How the entry is compressed.
+     * @param crc The CRC-32 of the uncompressed content.
+     * @param size The size of the uncompressed content.
+     * @param compressedSize The size of the content in the archive.
+     * @param data The content in the archive, or {@code null} if it is streamed from the file.
+     * @param file The object file streamed to the archive, if there is no data.
+     */
+    private record Entry(int method, long crc, long size, long compressedSize, byte[] data, Path file) {
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Browses a generated asset index through {@link AssetFileSystemProvider}, {@link AssetFileSystem} and {@link AssetPath}.
+ */
+class AssetFileSystemTest {
+    private static final String VERSION = "1.19";
+
+    @TempDir
+    Path dir;
+
+    private final Map<String, byte[]> contents = new LinkedHashMap<>();
+
+    private Path writeIndex() throws IOException {
+        contents.put("minecraft/lang/en_us.json", "{\"key\": \"value\"}".getBytes(StandardCharsets.UTF_8));
+        contents.put("minecraft/lang/fr_fr.json", "{\"cl\u00e9\": \"valeur\"}".getBytes(StandardCharsets.UTF_8));
+        contents.put("minecraft/sounds/ambient/cave/cave1.ogg", new byte[] {1, 2, 3, 4, 5});
+        contents.put("minecraft/sounds/music/game/calm 1.ogg", new byte[] {6, 7});
+        contents.put("icons/icon_16x16.png", new byte[] {8});
+        TestAssets.write(dir.resolve("mc"), VERSION, contents);
+        return dir.resolve("mc/assets/indexes").resolve(VERSION + ".json");
+    }
+
+    @Test
+    void walksTheAssetsOfAnIndexFile() throws IOException {
+        try (FileSystem assets = FileSystems.newFileSystem(writeIndex())) {
+            assertTrue(assets instanceof AssetFileSystem);
+            assertTrue(assets.isReadOnly());
+            Set<String> files;
+            Set<String> directories;
+            try (Stream<Path> paths = Files.walk(assets.getPath("/"))) {
+                Map<Boolean, Set<String>> byType = paths.collect(Collectors.partitioningBy(Files::isDirectory, Collectors.mapping(Path::toString, Collectors.toSet())));
+                files = byType.get(false);
+                directories = byType.get(true);
+            }
+            assertEquals(contents.keySet().stream().map(path -> "/" + path).collect(Collectors.toSet()), files);
+            assertEquals(Set.of("/", "/icons", "/minecraft", "/minecraft/lang", "/minecraft/sounds", "/minecraft/sounds/ambient",
+                    "/minecraft/sounds/ambient/cave", "/minecraft/sounds/music", "/minecraft/sounds/music/game"), directories);
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                assertArrayEquals(entry.getValue(), Files.readAllBytes(assets.getPath(entry.getKey())), entry.getKey());
+            }
+            assertThrows(NoSuchFileException.class, () -> Files.readAllBytes(assets.getPath("/minecraft/lang/de_de.json")));
+        }
+    }
+
+    @Test
+    void readsTheAttributesFromTheIndex() throws IOException {
+        try (FileSystem assets = new AssetFileSystemProvider().newFileSystem(writeIndex(), Map.of())) {
+            Path file = assets.getPath("/minecraft/sounds/ambient/cave/cave1.ogg");
+            Map<String, Object> attributes = Files.readAttributes(file, "*");
+            assertEquals(Set.of("lastModifiedTime", "lastAccessTime", "creationTime", "size", "isRegularFile", "isDirectory",
+                    "isSymbolicLink", "isOther", "fileKey"), attributes.keySet());
+            assertEquals(5L, attributes.get("size"));
+            assertEquals(true, attributes.get("isRegularFile"));
+            assertEquals(false, attributes.get("isDirectory"));
+            assertEquals(TestAssets.hash(contents.get("minecraft/sounds/ambient/cave/cave1.ogg")), attributes.get("fileKey"));
+            assertEquals(Map.of("size", 5L), Files.readAttributes(file, "basic:size"));
+
+            BasicFileAttributes directory = Files.readAttributes(file.getParent(), BasicFileAttributes.class);
+            assertTrue(directory.isDirectory());
+            assertEquals(null, directory.fileKey());
+            assertEquals(Files.getLastModifiedTime(dir.resolve("mc/assets/indexes").resolve(VERSION + ".json")), directory.lastModifiedTime());
+            assertThrows(IllegalArgumentException.class, () -> Files.readAttributes(file, "size,owner"));
+            assertThrows(UnsupportedOperationException.class, () -> Files.readAttributes(file, "posix:*"));
+        }
+    }
+
+    @Test
+    void findsThePathsOfTheirUris() throws IOException {
+        URI uri = URI.create(AssetFileSystemProvider.SCHEME + ":" + writeIndex().toUri());
+        try (FileSystem assets = FileSystems.newFileSystem(uri, Map.of())) {
+            assertSame(assets, FileSystems.getFileSystem(uri));
+            assertThrows(FileSystemAlreadyExistsException.class, () -> FileSystems.newFileSystem(uri, Map.of()));
+            for (String path : List.of("/", "/minecraft/lang", "/minecraft/sounds/music/game/calm 1.ogg", "/minecraft/lang/fr_fr.json")) {
+                Path assetPath = assets.getPath(path);
+                URI pathUri = assetPath.toUri();
+                assertEquals(AssetFileSystemProvider.SCHEME, pathUri.getScheme());
+                assertEquals(assetPath, Path.of(pathUri), path);
+            }
+            // A relative path has the URI of its absolute path
+            assertEquals(assets.getPath("/minecraft/lang"), Path.of(assets.getPath("minecraft/lang").toUri()));
+            assertArrayEquals(contents.get("minecraft/lang/fr_fr.json"), Files.readAllBytes(Path.of(assets.getPath("/minecraft/lang/fr_fr.json").toUri())));
+        }
+        assertThrows(FileSystemNotFoundException.class, () -> FileSystems.getFileSystem(uri));
+    }
+
+    @Test
+    void rejectsWrites() throws IOException {
+        try (FileSystem assets = FileSystems.newFileSystem(writeIndex())) {
+            Path file = assets.getPath("/minecraft/lang/en_us.json");
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.write(file, new byte[1]));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.write(assets.getPath("/minecraft/lang/de_de.json"), new byte[1]));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.newByteChannel(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.delete(file));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.createDirectory(assets.getPath("/minecraft/textures")));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.move(file, assets.getPath("/minecraft/lang/de_de.json")));
+            assertThrows(ReadOnlyFileSystemException.class, () -> Files.setLastModifiedTime(file, Files.getLastModifiedTime(file)));
+            // The object file is left as it was
+            assertArrayEquals(contents.get("minecraft/lang/en_us.json"), Files.readAllBytes(file));
+        }
+    }
+
+    @Test
+    void matchesGlobs() throws IOException {
+        try (FileSystem assets = FileSystems.newFileSystem(writeIndex())) {
+            PathMatcher json = assets.getPathMatcher("glob:/minecraft/**.json");
+            PathMatcher lang = assets.getPathMatcher("glob:/minecraft/*/*_??.json");
+            PathMatcher sounds = assets.getPathMatcher("glob:/minecraft/sounds/*/{cave,game}/*.ogg");
+            PathMatcher icons = assets.getPathMatcher("glob:/icons/icon_[0-9]*.png");
+            try (Stream<Path> paths = Files.walk(assets.getPath("/"))) {
+                List<Path> files = paths.filter(Files::isRegularFile).toList();
+                assertEquals(Set.of("/minecraft/lang/en_us.json", "/minecraft/lang/fr_fr.json"), matching(files, json));
+                assertEquals(Set.of("/minecraft/lang/en_us.json", "/minecraft/lang/fr_fr.json"), matching(files, lang));
+                assertEquals(Set.of("/minecraft/sounds/ambient/cave/cave1.ogg", "/minecraft/sounds/music/game/calm 1.ogg"), matching(files, sounds));
+                assertEquals(Set.of("/icons/icon_16x16.png"), matching(files, icons));
+            }
+            // '*' stays in a segment, '**' crosses them
+            assertFalse(assets.getPathMatcher("glob:/minecraft/*.json").matches(assets.getPath("/minecraft/lang/en_us.json")));
+            assertTrue(assets.getPathMatcher("glob:/minecraft/**").matches(assets.getPath("/minecraft/lang/en_us.json")));
+            assertTrue(assets.getPathMatcher("regex:.*/fr_.*").matches(assets.getPath("/minecraft/lang/fr_fr.json")));
+            assertThrows(UnsupportedOperationException.class, () -> assets.getPathMatcher("wildcard:*"));
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        writeIndex();
+        AssetFileSystemProvider provider = new AssetFileSystemProvider();
+        Path other = Files.writeString(dir.resolve(VERSION + ".json"), "{\"objects\": {}}");
+        assertThrows(UnsupportedOperationException.class, () -> provider.newFileSystem(other, Map.of()));
+        Path notJson = Files.writeString(dir.resolve("mc/assets/indexes/" + VERSION + ".txt"), "{\"objects\": {}}");
+        assertThrows(UnsupportedOperationException.class, () -> provider.newFileSystem(notJson, Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> provider.newFileSystem(other.toUri(), Map.of()));
+    }
+
+    private static Set<String> matching(List<Path> paths, PathMatcher matcher) {
+        return paths.stream().filter(matcher::matches).map(Path::toString).collect(Collectors.toSet());
+    }
+}
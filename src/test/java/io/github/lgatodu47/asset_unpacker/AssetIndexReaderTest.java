@@ -0,0 +1,145 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares {@link AssetIndexReader} with the reader it replaced, {@link JsonUtils#readIndexesJson(String, java.util.function.Consumer)},
+ * and with gson, which is the reference for what a valid index contains.
+ */
+class AssetIndexReaderTest {
+    private static final String HASH = "bdf48ef6b5d0d23bbb02e17d04865216179f510a";
+
+    @Test
+    void readsPlainIndex() throws IOException {
+        String json = """
+                {
+                  "objects": {
+                    "minecraft/lang/fr_fr.json": {"hash": "%1$s", "size": 354012},
+                    "minecraft/sounds/ambient/cave/cave1.ogg": {
+                      "size": 24542,
+                      "hash": "%1$s"
+                    },
+                    "pack.mcmeta": {"hash": "%1$s", "size": 0, "extra": [true, false, null, 1.5e3, -2]}
+                  },
+                  "map_to_resources": false
+                }
+                """.formatted(HASH);
+        List<Asset> assets = readWithReader(json);
+        assertEquals(3, assets.size());
+        assertEquals(new Asset("minecraft/sounds/ambient/cave/cave1.ogg", HASH, 24542), assets.get(1));
+        assertEquals(readWithGson(json), assets);
+        assertEquals(readWithJsonUtils(json), assets);
+    }
+
+    @Test
+    void readsUnicode() throws IOException {
+        // Multi-byte UTF-8 characters written as is, including a character outside of the BMP
+        String json = "{\"objects\": {\"minecraft/lang/\u00e9t\u00e9_\u00fc_\u65e5\u672c\u8a9e_\uD83D\uDE00.json\": {\"hash\": \"" + HASH + "\", \"size\": 12}}}";
+        List<Asset> assets = readWithReader(json);
+        assertEquals(List.of(new Asset("minecraft/lang/\u00e9t\u00e9_\u00fc_\u65e5\u672c\u8a9e_\uD83D\uDE00.json", HASH, 12)), assets);
+        assertEquals(readWithGson(json), assets);
+        assertEquals(readWithJsonUtils(json), assets);
+    }
+
+    @Test
+    void readsEscapeSequences() throws IOException {
+        String json = """
+                {"objects": {
+                  "a\\"quoted\\"\\\\back\\/slash.json": {"hash": "%1$s", "size": 1},
+                  "controls\\b\\f\\n\\r\\t.txt": {"hash": "%1$s", "size": 2},
+                  "\\u00e9t\\u00E9_\\u65e5\\u672c_\\uD83D\\uDE00.json": {"hash": "\\u0062df48ef6b5d0d23bbb02e17d04865216179f510a", "size": 3}
+                }}
+                """.formatted(HASH);
+        List<Asset> assets = readWithReader(json);
+        assertEquals(List.of(
+                new Asset("a\"quoted\"\\back/slash.json", HASH, 1),
+                new Asset("controls\b\f\n\r\t.txt", HASH, 2),
+                new Asset("\u00e9t\u00e9_\u65e5\u672c_\uD83D\uDE00.json", HASH, 3)), assets);
+        assertEquals(readWithGson(json), assets);
+        // The old reader kept the escape sequences as they were written
+        assertNotEquals(readWithJsonUtils(json), assets);
+    }
+
+    @Test
+    void readsStringsAcrossBufferBoundaries() throws IOException {
+        // Far bigger than the buffer of the reader, so strings, escapes and numbers end up split between two reads
+        StringBuilder json = new StringBuilder("{\"objects\": {");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"dir\\/\\u00e9\u65e5_").append(i).append(".json\": {\"hash\": \"").append(HASH).append("\", \"size\": ").append(i * 1000L).append('}');
+        }
+        json.append("}}");
+        List<Asset> assets = readWithReader(json.toString());
+        assertEquals(5000, assets.size());
+        assertEquals(readWithGson(json.toString()), assets);
+    }
+
+    @Test
+    void rejectsMalformedIndexes() {
+        String[] malformed = {
+                "{\"objects\": {\"a\": {\"hash\": \"abc",
+                "{\"objects\": {\"a\\q\": {\"hash\": \"abc\", \"size\": 1}}}",
+                "{\"objects\": {\"a\\u12G4\": {\"hash\": \"abc\", \"size\": 1}}}",
+                "{\"objects\": {\"a\": {\"hash\": \"abc\", \"size\": 1]}}",
+                "{\"objects\": {\"a\": {\"hash\": \"abc\", \"size\": 1}}",
+                "{\"objects\": {\"a\": {\"hash\": \"abc\", \"size\": 1, \"x\": nul}}}",
+                "{\"objects\": {\"a\": {\"hash\": abc, \"size\": 1}}}"
+        };
+        for (String json : malformed) {
+            IOException e = assertThrows(IOException.class, () -> readWithReader(json), json);
+            assertTrue(e.getMessage().contains("at byte"), e.getMessage());
+            // The type of the exception depends on the version of gson
+            assertThrows(Exception.class, () -> readWithGson(json), json);
+        }
+    }
+
+    @Test
+    void rejectsUnpairedSurrogates() throws IOException {
+        // gson keeps them in the string, but they can't be encoded in a file name
+        String json = "{\"objects\": {\"a\\uD83D.json\": {\"hash\": \"" + HASH + "\", \"size\": 1}}}";
+        assertEquals(1, readWithGson(json).size());
+        assertThrows(IOException.class, () -> readWithReader(json));
+        assertThrows(IOException.class, () -> readWithReader(json.replace("D83D", "DE00")));
+    }
+
+    private static List<Asset> readWithReader(String json) throws IOException {
+        List<Asset> assets = new ArrayList<>();
+        AssetIndexReader.read(Channels.newChannel(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))), assets::add);
+        return assets;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<Asset> readWithJsonUtils(String json) {
+        List<Asset> assets = new ArrayList<>();
+        JsonUtils.readIndexesJson(json, assets::add);
+        return assets;
+    }
+
+    /**
+     * Reads an index with a strict gson reader, the lenient one accepts unquoted strings.
+     */
+    private static List<Asset> readWithGson(String json) throws IOException {
+        JsonElement root = new Gson().getAdapter(JsonElement.class).fromJson(json);
+        List<Asset> assets = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject().getAsJsonObject("objects").entrySet()) {
+            JsonObject object = entry.getValue().getAsJsonObject();
+            assets.add(new Asset(entry.getKey(), object.get("hash").getAsString(), object.get("size").getAsLong()));
+        }
+        return assets;
+    }
+}
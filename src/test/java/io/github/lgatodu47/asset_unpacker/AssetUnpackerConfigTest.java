@@ -0,0 +1,48 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the combinations of options {@link AssetUnpackerConfig} rejects, from the builder and from the arguments.
+ */
+class AssetUnpackerConfigTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void acceptsABaseVersion() throws ConfigParsingError {
+        AssetUnpackerConfig config = AssetUnpackerConfig.parseArgs("-mcd=" + dir, "-ai=1.19", "-od=" + dir, "-base=1.18");
+        assertEquals("1.18", config.base());
+        assertEquals(List.of("1.19"), config.assetsIndexes());
+        assertEquals("1.18", AssetUnpackerConfig.builder(dir, List.of("1.19"), dir).base("1.18").build().base());
+    }
+
+    @Test
+    void rejectsABaseVersionWithAnIncrementalMode() {
+        assertThrows(IllegalArgumentException.class, () -> AssetUnpackerConfig.builder(dir, List.of("1.19"), dir)
+                .base("1.18").incremental(IncrementalMode.SIZE).build());
+        assertThrows(ConfigParsingError.class, () -> AssetUnpackerConfig.parseArgs("-mcd=" + dir, "-ai=1.19", "-od=" + dir, "-base=1.18", "-incremental=hash"));
+    }
+
+    @Test
+    void rejectsABaseVersionWithTheWatchMode() {
+        assertThrows(IllegalArgumentException.class, () -> AssetUnpackerConfig.builder(dir, List.of("1.19"), dir)
+                .base("1.18").watch(true).build());
+        assertThrows(ConfigParsingError.class, () -> AssetUnpackerConfig.parseArgs("-mcd=" + dir, "-ai=1.19", "-od=" + dir, "-base=1.18", "-watch=true"));
+    }
+
+    @Test
+    void rejectsABaseVersionWithSeveralIndexes() {
+        assertThrows(IllegalArgumentException.class, () -> AssetUnpackerConfig.builder(dir, List.of("1.19", "1.20"), dir)
+                .base("1.18").build());
+        assertThrows(IllegalArgumentException.class, () -> AssetUnpackerConfig.builder(dir, List.of("1.19"), dir)
+                .base("1.19").build());
+        assertThrows(ConfigParsingError.class, () -> AssetUnpackerConfig.parseArgs("-mcd=" + dir, "-ai=1.19,1.20", "-od=" + dir, "-base=1.18"));
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unpacks generated assets to a directory with {@link DirectorySink}, through {@link MinecraftAssetUnpacker}.
+ */
+class DirectorySinkTest {
+    private static final String VERSION = "1.19";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesAnInterruptedUnpack() throws IOException {
+        int count = UnpackJournal.VERIFIED_TAIL + 50;
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            contents.put("minecraft/lang/" + i + ".json", ("{\"asset\": " + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        Path mcDir = dir.resolve("mc");
+        Path outputDir = dir.resolve("out");
+        List<Asset> assets = TestAssets.write(mcDir, VERSION, contents);
+
+        // The state left by an unpack interrupted while writing the entry of the third to last asset
+        Asset completedCorrupted = assets.get(0);
+        Asset cut = assets.get(count - 3);
+        Asset otherHash = assets.get(count - 2);
+        Asset recentCorrupted = assets.get(count - 1);
+        StringBuilder journal = new StringBuilder("MinecraftAssetUnpacker journal 1\n");
+        for (Asset asset : assets) {
+            if (asset != cut) {
+                String hash = asset == otherHash ? TestAssets.hash(new byte[0]) : asset.hash();
+                journal.append(VERSION).append('\t').append(hash).append('\t').append(asset.path()).append('\n');
+                Path output = outputDir.resolve(asset.path());
+                Files.createDirectories(output.getParent());
+                Files.write(output, contents.get(asset.path()));
+            }
+        }
+        journal.append(VERSION).append('\t').append(cut.hash()).append('\t').append(cut.path(), 0, 10);
+        Files.writeString(outputDir.resolve(UnpackJournal.FILE_NAME), journal);
+        corrupt(outputDir.resolve(completedCorrupted.path()));
+        corrupt(outputDir.resolve(otherHash.path()));
+        corrupt(outputDir.resolve(recentCorrupted.path()));
+        Files.writeString(outputDir.resolve(cut.path() + DirectorySink.PART_SUFFIX), "left over");
+
+        Map<String, UnpackOutcome> outcomes = new ConcurrentHashMap<>();
+        UnpackResult result = new MinecraftAssetUnpacker().start(AssetUnpackerConfig.builder(mcDir, List.of(VERSION), outputDir).threads(4).resume(true).build(), new UnpackListener() {
+            @Override
+            public void assetUnpacked(Asset asset, UnpackOutcome outcome) {
+                outcomes.put(asset.path(), outcome);
+            }
+        });
+
+        assertEquals(0, result.failed());
+        assertEquals(count, outcomes.size());
+        for (Asset asset : assets) {
+            boolean unpacked = asset == cut || asset == otherHash || asset == recentCorrupted;
+            assertEquals(unpacked ? UnpackOutcome.COPIED : UnpackOutcome.UP_TO_DATE, outcomes.get(asset.path()), asset.path());
+            if (asset != completedCorrupted) {
+                assertArrayEquals(contents.get(asset.path()), Files.readAllBytes(outputDir.resolve(asset.path())), asset.path());
+            }
+        }
+        // Only the outputs of the last entries are verified, the older ones are trusted
+        assertFalse(Arrays.equals(contents.get(completedCorrupted.path()), Files.readAllBytes(outputDir.resolve(completedCorrupted.path()))));
+        // The unpack completed, so the journal and the part files are gone
+        assertFalse(Files.exists(outputDir.resolve(UnpackJournal.FILE_NAME)));
+        try (Stream<Path> files = Files.walk(outputDir)) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(DirectorySink.PART_SUFFIX)).count());
+        }
+    }
+
+    /**
+     * Changes the content of a file without changing its size.
+     */
+    private static void corrupt(Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        content[0] ^= 1;
+        Files.write(file, content);
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares small asset indexes with {@link IndexDiff} and checks the change manifest it writes.
+ */
+class IndexDiffTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsAddedChangedAndRemovedAssets() {
+        Asset removed = asset("a.json", "a", 1);
+        Asset same = asset("b.json", "b", 2);
+        Asset changedHash = asset("c.json", "c2", 3);
+        Asset added = asset("d.json", "d", 4);
+        Asset changedSize = asset("e.json", "e", 50);
+        AssetIndex base = TestAssets.index(List.of(removed, same, asset("c.json", "c", 3), asset("e.json", "e", 5)));
+        AssetIndex index = TestAssets.index(List.of(same, changedHash, added, changedSize));
+
+        IndexDiff diff = IndexDiff.between(base, index);
+        assertEquals(List.of(added), diff.added());
+        assertEquals(List.of(changedHash, changedSize), diff.changed());
+        assertEquals(List.of(removed), diff.removed());
+        assertFalse(diff.isEmpty());
+        assertEquals(List.of(changedHash, added, changedSize), list(diff.toUnpack()));
+    }
+
+    @Test
+    void addsTheAssetsAfterTheEndOfTheBase() {
+        Asset same = asset("a.json", "a", 1);
+        Asset first = asset("m.json", "m", 2);
+        Asset second = asset("z.json", "z", 3);
+        IndexDiff diff = IndexDiff.between(TestAssets.index(List.of(same)), TestAssets.index(List.of(same, first, second)));
+        assertEquals(List.of(first, second), diff.added());
+        assertEquals(List.of(), diff.changed());
+        assertEquals(List.of(), diff.removed());
+    }
+
+    @Test
+    void removesTheAssetsAfterTheEndOfTheIndex() {
+        Asset same = asset("a.json", "a", 1);
+        Asset first = asset("m.json", "m", 2);
+        Asset second = asset("z.json", "z", 3);
+        IndexDiff diff = IndexDiff.between(TestAssets.index(List.of(same, first, second)), TestAssets.index(List.of(same)));
+        assertEquals(List.of(), diff.added());
+        assertEquals(List.of(), diff.changed());
+        assertEquals(List.of(first, second), diff.removed());
+    }
+
+    @Test
+    void comparesIdenticalAndEmptyIndexes() {
+        List<Asset> assets = List.of(asset("a.json", "a", 1), asset("minecraft/b.json", "b", 2));
+        AssetIndex empty = TestAssets.index(List.of());
+
+        assertTrue(IndexDiff.between(TestAssets.index(assets), TestAssets.index(assets)).isEmpty());
+        assertTrue(IndexDiff.between(empty, empty).isEmpty());
+        assertEquals(0, IndexDiff.between(empty, empty).toUnpack().size());
+        assertEquals(assets, IndexDiff.between(empty, TestAssets.index(assets)).added());
+        assertEquals(assets, IndexDiff.between(TestAssets.index(assets), empty).removed());
+    }
+
+    @Test
+    void writesTheChanges() throws IOException {
+        Asset removed = asset("a.json", "a", 1);
+        Asset previous = asset("c.json", "c", 3);
+        Asset changed = asset("c.json", "c2", 30);
+        Asset added = asset("d.json", "d", 4);
+        AssetIndex base = TestAssets.index(List.of(removed, previous));
+        IndexDiff diff = IndexDiff.between(base, TestAssets.index(List.of(changed, added)));
+
+        Path file = IndexDiff.fileFor(dir.resolve("unpacked"));
+        assertEquals(dir.resolve("unpacked.changes.json").toAbsolutePath(), file);
+        diff.write(file, base, "1.18", "1.19");
+
+        JsonObject root = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals("1.18", root.get("base").getAsString());
+        assertEquals("1.19", root.get("version").getAsString());
+        JsonObject addedJson = single(root.getAsJsonArray("added"));
+        assertEquals(added.path(), addedJson.get("path").getAsString());
+        assertEquals(added.hash(), addedJson.get("hash").getAsString());
+        assertFalse(addedJson.has("previousHash"));
+        JsonObject changedJson = single(root.getAsJsonArray("changed"));
+        assertEquals(changed.hash(), changedJson.get("hash").getAsString());
+        assertEquals(30, changedJson.get("size").getAsLong());
+        assertEquals(previous.hash(), changedJson.get("previousHash").getAsString());
+        assertEquals(3, changedJson.get("previousSize").getAsLong());
+        assertEquals(removed.path(), single(root.getAsJsonArray("removed")).get("path").getAsString());
+    }
+
+    private static JsonObject single(JsonArray array) {
+        assertEquals(1, array.size());
+        return array.get(0).getAsJsonObject();
+    }
+
+    private static List<Asset> list(AssetIndex index) {
+        List<Asset> assets = new ArrayList<>();
+        index.forEach(assets::add);
+        return assets;
+    }
+
+    private static Asset asset(String path, String content, long size) {
+        return new Asset(path, TestAssets.hash(content.getBytes(StandardCharsets.UTF_8)), size);
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the glob semantics of {@link PathFilter}, for the literal segments walked down the trie and the wildcards.
+ */
+class PathFilterTest {
+    @Test
+    void matchesLiteralPathsExactly() {
+        PathFilter filter = include("minecraft/lang/en_us.json");
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertFalse(filter.test("minecraft/lang"));
+        assertFalse(filter.test("minecraft/lang/en_us.json.bak"));
+        assertFalse(filter.test("minecraft/lang/en_us.json/more"));
+        assertFalse(filter.test("realms/lang/en_us.json"));
+    }
+
+    @Test
+    void matchesZeroOrMoreSegmentsWithDoubleStar() {
+        PathFilter filter = include("minecraft/**/en_us.json");
+        assertTrue(filter.test("minecraft/en_us.json"));
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertTrue(filter.test("minecraft/a/b/c/en_us.json"));
+        assertFalse(filter.test("minecraft/lang/de_de.json"));
+        assertFalse(filter.test("en_us.json"));
+
+        PathFilter leading = include("**/*.png");
+        assertTrue(leading.test("icon.png"));
+        assertTrue(leading.test("minecraft/textures/block/stone.png"));
+        assertFalse(leading.test("minecraft/textures/block/stone.png.mcmeta"));
+    }
+
+    @Test
+    void doesNotMatchTheDirectoryOfATrailingDoubleStar() {
+        for (PathFilter filter : List.of(include("minecraft/sounds/**"), include("minecraft/sounds/"))) {
+            assertTrue(filter.test("minecraft/sounds/ambient/cave/cave1.ogg"));
+            assertTrue(filter.test("minecraft/sounds/click.ogg"));
+            assertFalse(filter.test("minecraft/sounds"));
+            assertFalse(filter.test("minecraft/soundsx/click.ogg"));
+            assertFalse(filter.test("minecraft/lang/en_us.json"));
+        }
+        PathFilter wildcard = include("minecraft/*/**");
+        assertTrue(wildcard.test("minecraft/sounds/click.ogg"));
+        assertFalse(wildcard.test("minecraft/sounds"));
+    }
+
+    @Test
+    void matchesWithinASegmentWithStarAndQuestionMark() {
+        PathFilter star = include("minecraft/lang/*.json");
+        assertTrue(star.test("minecraft/lang/en_us.json"));
+        assertTrue(star.test("minecraft/lang/.json"));
+        assertFalse(star.test("minecraft/lang/sub/en_us.json"));
+        assertFalse(star.test("minecraft/lang/en_us.ogg"));
+
+        PathFilter question = include("minecraft/lang/en_??.json");
+        assertTrue(question.test("minecraft/lang/en_us.json"));
+        assertTrue(question.test("minecraft/lang/en_gb.json"));
+        assertFalse(question.test("minecraft/lang/en_u.json"));
+        assertFalse(question.test("minecraft/lang/en_usa.json"));
+
+        // A wildcard never matches a separator
+        PathFilter separator = include("minecraft/a?b", "minecraft/a*b");
+        assertTrue(separator.test("minecraft/axb"));
+        assertTrue(separator.test("minecraft/ab"));
+        assertFalse(separator.test("minecraft/a/b"));
+    }
+
+    @Test
+    void combinesLiteralGlobsAndPatterns() {
+        // A pattern at the root is tried before looking up the literal segments of the path
+        PathFilter filter = include("minecraft/lang/en_us.json", "*/sounds/**", "minecraft/lang/*_ca.json", "minecraft/lang");
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertTrue(filter.test("minecraft/sounds/click.ogg"));
+        assertTrue(filter.test("realms/sounds/click.ogg"));
+        assertTrue(filter.test("minecraft/lang/fr_ca.json"));
+        // A literal glob ending at a directory only matches that path, not what is under it
+        assertTrue(filter.test("minecraft/lang"));
+        assertFalse(filter.test("minecraft/lang/de_de.json"));
+        assertFalse(filter.test("minecraft/textures/block/stone.png"));
+        assertFalse(filter.test("realms/lang/en_us.json"));
+    }
+
+    @Test
+    void normalizesTheGlobs() {
+        PathFilter filter = include(" ./minecraft\\lang//en_us.json ", "/realms/");
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertTrue(filter.test("realms/lang/en_us.json"));
+        assertFalse(filter.test("minecraft/lang/de_de.json"));
+    }
+
+    @Test
+    void excludesTakePrecedenceOverIncludes() {
+        PathFilter filter = PathFilter.of(List.of("minecraft/sounds/**", "minecraft/lang/en_us.json"), List.of("minecraft/sounds/music/**", "**/*.mcmeta"));
+        assertTrue(filter.test("minecraft/sounds/click.ogg"));
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertFalse(filter.test("minecraft/sounds/music/game/calm1.ogg"));
+        assertFalse(filter.test("minecraft/sounds/click.mcmeta"));
+        assertFalse(filter.test("minecraft/lang/de_de.json"));
+    }
+
+    @Test
+    void includesEverythingWithoutIncludeGlobs() {
+        PathFilter filter = PathFilter.of(List.of(), List.of("minecraft/sounds/**"));
+        assertFalse(filter.isAll());
+        assertTrue(filter.test("minecraft/lang/en_us.json"));
+        assertTrue(filter.test("minecraft/sounds"));
+        assertFalse(filter.test("minecraft/sounds/click.ogg"));
+
+        PathFilter all = PathFilter.of(List.of(), List.of());
+        assertSame(PathFilter.ALL, all);
+        assertTrue(all.isAll());
+        assertTrue(all.test("minecraft/sounds/click.ogg"));
+        assertFalse(include("minecraft/**").isAll());
+    }
+
+    private static PathFilter include(String... globs) {
+        return PathFilter.of(List.of(globs), List.of());
+    }
+}
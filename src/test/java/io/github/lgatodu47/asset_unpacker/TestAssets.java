@@ -0,0 +1,70 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the asset indexes and object files of a Minecraft directory for the tests.
+ */
+final class TestAssets {
+    private TestAssets() {
+    }
+
+    /**
+     * Writes an asset index and the object files of its assets.
+     *
+     * @param mcDir The Minecraft directory.
+     * @param version The version of the index.
+     * @param contents The content of each asset, by path.
+     * @return The assets of the index, in the order of the given map.
+     * @throws IOException If an I/O error occurs.
+     */
+    static List<Asset> write(Path mcDir, String version, Map<String, byte[]> contents) throws IOException {
+        List<Asset> assets = new ArrayList<>(contents.size());
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            Asset asset = new Asset(entry.getKey(), hash(entry.getValue()), entry.getValue().length);
+            Path objectPath = mcDir.resolve("assets/objects").resolve(asset.objectName());
+            Files.createDirectories(objectPath.getParent());
+            Files.write(objectPath, entry.getValue());
+            assets.add(asset);
+        }
+        writeIndex(mcDir, version, assets);
+        return assets;
+    }
+
+    /**
+     * Writes an asset index without any object file.
+     */
+    static void writeIndex(Path mcDir, String version, List<Asset> assets) throws IOException {
+        Path indexFile = mcDir.resolve("assets/indexes").resolve(version + ".json");
+        Files.createDirectories(indexFile.getParent());
+        try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8); JsonWriter json = new JsonWriter(writer)) {
+            json.beginObject().name("objects").beginObject();
+            for (Asset asset : assets) {
+                json.name(asset.path()).beginObject().name("hash").value(asset.hash()).name("size").value(asset.size()).endObject();
+            }
+            json.endObject().endObject();
+        }
+    }
+
+    /**
+     * Builds an asset index in memory.
+     */
+    static AssetIndex index(List<Asset> assets) {
+        AssetIndex.Builder builder = new AssetIndex.Builder();
+        assets.forEach(builder);
+        return builder.build();
+    }
+
+    static String hash(byte[] content) {
+        return HashUtils.toHex(HashUtils.newSha1().digest(content));
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks what {@link UnpackJournal} knows about the assets when resuming, from journals left in various states.
+ */
+class UnpackJournalTest {
+    private static final String HEADER = "MinecraftAssetUnpacker journal 1\n";
+    private static final String VERSION = "1.19";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesFromTheEntriesWritten() throws IOException {
+        List<Asset> assets = assets(UnpackJournal.VERIFIED_TAIL + 10);
+        try (UnpackJournal journal = UnpackJournal.open(dir, false)) {
+            for (Asset asset : assets) {
+                journal.completed(VERSION, asset);
+            }
+        }
+        try (UnpackJournal journal = UnpackJournal.open(dir, true)) {
+            // Only the outputs of the last entries may not have reached the disk
+            for (int i = 0; i < assets.size(); i++) {
+                UnpackJournal.Status expected = i < 10 ? UnpackJournal.Status.COMPLETED : UnpackJournal.Status.RECENT;
+                assertEquals(expected, journal.status(VERSION, assets.get(i)), assets.get(i).path());
+            }
+            assertEquals(UnpackJournal.Status.MISSING, journal.status("1.20", assets.get(0)));
+        }
+    }
+
+    @Test
+    void ignoresTheCutLastLine() throws IOException {
+        Asset first = asset(0);
+        Asset cut = asset(1);
+        Asset next = asset(2);
+        String cutLine = VERSION + '\t' + cut.hash() + '\t' + cut.path();
+        Files.writeString(dir.resolve(UnpackJournal.FILE_NAME), HEADER + line(first) + cutLine.substring(0, cutLine.length() - 3));
+
+        try (UnpackJournal journal = UnpackJournal.open(dir, true)) {
+            assertEquals(UnpackJournal.Status.RECENT, journal.status(VERSION, first));
+            assertEquals(UnpackJournal.Status.MISSING, journal.status(VERSION, cut));
+            journal.completed(VERSION, next);
+        }
+        // The entries appended when resuming don't end up on the cut line
+        assertEquals(HEADER + line(first) + line(next), Files.readString(dir.resolve(UnpackJournal.FILE_NAME)));
+        try (UnpackJournal journal = UnpackJournal.open(dir, true)) {
+            assertEquals(UnpackJournal.Status.RECENT, journal.status(VERSION, next));
+        }
+    }
+
+    @Test
+    void startsOverWithoutHeader() throws IOException {
+        Asset asset = asset(0);
+        Files.writeString(dir.resolve(UnpackJournal.FILE_NAME), line(asset));
+        try (UnpackJournal journal = UnpackJournal.open(dir, true)) {
+            assertEquals(UnpackJournal.Status.MISSING, journal.status(VERSION, asset));
+        }
+        assertEquals(HEADER, Files.readString(dir.resolve(UnpackJournal.FILE_NAME)));
+    }
+
+    @Test
+    void startsOverWithoutResume() throws IOException {
+        Asset asset = asset(0);
+        Files.writeString(dir.resolve(UnpackJournal.FILE_NAME), HEADER + line(asset));
+        try (UnpackJournal journal = UnpackJournal.open(dir, false)) {
+            assertEquals(UnpackJournal.Status.MISSING, journal.status(VERSION, asset));
+        }
+        assertEquals(HEADER, Files.readString(dir.resolve(UnpackJournal.FILE_NAME)));
+    }
+
+    @Test
+    void ignoresEntriesWithAnotherHash() throws IOException {
+        Asset asset = asset(0);
+        Files.writeString(dir.resolve(UnpackJournal.FILE_NAME), HEADER + line(asset));
+        Asset changed = new Asset(asset.path(), TestAssets.hash("changed".getBytes(StandardCharsets.UTF_8)), asset.size());
+        try (UnpackJournal journal = UnpackJournal.open(dir, true)) {
+            assertEquals(UnpackJournal.Status.MISSING, journal.status(VERSION, changed));
+            assertEquals(UnpackJournal.Status.RECENT, journal.status(VERSION, asset));
+        }
+    }
+
+    private static String line(Asset asset) {
+        return VERSION + '\t' + asset.hash() + '\t' + asset.path() + '\n';
+    }
+
+    private static Asset asset(int i) {
+        byte[] content = ("asset " + i).getBytes(StandardCharsets.UTF_8);
+        return new Asset("minecraft/lang/" + i + ".json", TestAssets.hash(content), content.length);
+    }
+
+    private static List<Asset> assets(int count) {
+        List<Asset> assets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            assets.add(asset(i));
+        }
+        return assets;
+    }
+}
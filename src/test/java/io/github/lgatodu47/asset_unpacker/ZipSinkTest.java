@@ -0,0 +1,131 @@
+package io.github.lgatodu47.asset_unpacker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes archives with {@link ZipSink} and reads them back with {@link ZipFile}.
+ */
+class ZipSinkTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesStoredAndDeflatedEntries() throws IOException {
+        Random random = new Random(42);
+        byte[] sound = new byte[100_000];
+        random.nextBytes(sound);
+        byte[] lang = "{\"menu.singleplayer\": \"Singleplayer\"}\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+        byte[] noise = new byte[10_000];
+        random.nextBytes(noise);
+
+        Path archive = dir.resolve("assets.zip");
+        List<Exception> failures = new ArrayList<>();
+        try (ZipSink sink = new ZipSink(AssetUnpackerConfig.builder(dir, List.of("1.19"), archive).verify(true).build())) {
+            UnpackStats stats = new UnpackStats();
+            sink.prepare(stats);
+            write(sink, failures, sound, "minecraft/sounds/ambient/cave/cave1.ogg");
+            // The same object under two paths is compressed once and appended twice
+            write(sink, failures, lang, "minecraft/lang/en_us.json", "minecraft/lang/en_gb.json");
+            write(sink, failures, noise, "minecraft/texts/noise.txt");
+            write(sink, failures, new byte[0], "pack.mcmeta");
+            sink.finish(stats);
+        }
+        assertEquals(List.of(), failures);
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(5, zip.size());
+            assertEntry(zip, "minecraft/sounds/ambient/cave/cave1.ogg", sound, ZipEntry.STORED);
+            assertEntry(zip, "minecraft/lang/en_us.json", lang, ZipEntry.DEFLATED);
+            assertEntry(zip, "minecraft/lang/en_gb.json", lang, ZipEntry.DEFLATED);
+            // Deflate doesn't shrink random data, so it is stored instead
+            assertEntry(zip, "minecraft/texts/noise.txt", noise, ZipEntry.STORED);
+            assertEntry(zip, "pack.mcmeta", new byte[0], ZipEntry.STORED);
+            assertTrue(zip.getEntry("minecraft/lang/en_us.json").getCompressedSize() < lang.length);
+        }
+    }
+
+    @Test
+    void writesZip64WhenThereAreTooManyEntries() throws IOException {
+        int count = 70_000;
+        byte[] content = "{\"animation\": {}}".getBytes(StandardCharsets.UTF_8);
+        String[] paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            paths[i] = "minecraft/textures/block/" + i + ".png.mcmeta";
+        }
+
+        Path archive = dir.resolve("assets.zip");
+        List<Exception> failures = new ArrayList<>();
+        try (ZipSink sink = new ZipSink(AssetUnpackerConfig.builder(dir, List.of("1.19"), archive).build())) {
+            UnpackStats stats = new UnpackStats();
+            sink.prepare(stats);
+            write(sink, failures, content, paths);
+            sink.finish(stats);
+        }
+        assertEquals(List.of(), failures);
+
+        // The entry count doesn't fit the end of central directory record, so the ZIP64 locator must precede it
+        ByteBuffer locator = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            channel.read(locator, channel.size() - 22 - 20);
+        }
+        assertEquals(0x07064b50, locator.getInt(0));
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(count, zip.size());
+            assertEntry(zip, paths[0], content, ZipEntry.STORED);
+            assertEntry(zip, paths[count - 1], content, ZipEntry.STORED);
+        }
+    }
+
+    /**
+     * Writes an object file with the given content, and unpacks it to the archive under the given paths.
+     */
+    private void write(ZipSink sink, List<Exception> failures, byte[] content, String... paths) throws IOException {
+        String hash = HashUtils.toHex(HashUtils.newSha1().digest(content));
+        Path objectPath = dir.resolve("assets/objects").resolve(hash.substring(0, 2)).resolve(hash);
+        Files.createDirectories(objectPath.getParent());
+        Files.write(objectPath, content);
+
+        List<UnpackTarget> targets = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            targets.add(new UnpackTarget("1.19", new Asset(path, hash, content.length)));
+        }
+        sink.write(objectPath, targets, new UnpackListener() {
+            @Override
+            public void assetFailed(Asset asset, Exception cause) {
+                failures.add(cause);
+            }
+        });
+    }
+
+    private static void assertEntry(ZipFile zip, String name, byte[] content, int method) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(entry, name);
+        assertEquals(method, entry.getMethod(), name);
+        assertEquals(content.length, entry.getSize(), name);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        assertEquals(crc.getValue(), entry.getCrc(), name);
+        try (InputStream in = zip.getInputStream(entry)) {
+            assertArrayEquals(content, in.readAllBytes(), name);
+        }
+    }
+}